@@ -0,0 +1,310 @@
+/**
+ * Adaptive hybrid sort for inputs that are already partly in order, such as
+ * a sorted feed with a few new elements appended.
+ *
+ * One scan over the natural runs decides the strategy. When at least half the
+ * elements already sit in runs of {@link #MIN_RUN} or more, the runs are
+ * merged: strictly descending runs are reversed, short runs are extended to
+ * {@link #MIN_RUN} with binary insertion sort, and adjacent runs are merged
+ * in the order given by the powersort policy of Munro and Wild, which keeps
+ * the merge tree close to balanced by the runs' positions in the array.
+ * Each merge skips the elements of either run that are already in place,
+ * copies out only the shorter run, and after {@link #GALLOP_AFTER} wins in a
+ * row by one side finds the end of that side's streak by exponential search
+ * and moves it in bulk. Otherwise the input has little order to exploit and
+ * goes to {@link Sorts#introSort}, which is quick sort with a heap sort
+ * fallback and insertion-sorted leaves. Inputs shorter than
+ * {@link #MIN_RUN} are binary-insertion-sorted directly.
+ *
+ * Compares against an element that has been copied to the scratch buffer are
+ * reported on the array index alone, as that element's old slot may already
+ * have been overwritten.
+ */
+public final class AdaptiveSort {
+    static final int MIN_RUN = 32;
+    private static final int GALLOP_AFTER = 8;
+
+    private final int[] a;
+    private final SortObserver o;
+    private int[] scratch = new int[0];
+
+    // Runs waiting to be merged, by start; power[k] is that of the boundary after run k.
+    private final int[] start = new int[64];
+    private final int[] power = new int[64];
+    private int pending;
+
+    private AdaptiveSort(int[] a, SortObserver o) {
+        this.a = a;
+        this.o = o;
+    }
+
+    public static void adaptiveSort(int[] array) {
+        adaptiveSort(array, SortObserver.NONE);
+    }
+
+    public static void adaptiveSort(int[] array, SortObserver o) {
+        int n = array.length;
+        if (n < 2) return;
+        if (n < MIN_RUN) {
+            binaryInsertionSort(array, 0, n, ascendingRun(array, 0, n, o), o);
+        } else if (hasLongRuns(array, o)) {
+            new AdaptiveSort(array, o).mergeRuns();
+        } else {
+            Sorts.introSort(array, 0, n, o);
+        }
+    }
+
+    /** Stops as soon as either half of the input is known to be in long runs or outside them. */
+    private static boolean hasLongRuns(int[] array, SortObserver o) {
+        int n = array.length;
+        long inRuns = 0, outside = 0;
+        for (int lo = 0; lo < n; ) {
+            int end = runEnd(array, lo, n, o);
+            if (end - lo >= MIN_RUN) inRuns += end - lo;
+            else outside += end - lo;
+            if (2 * inRuns >= n) return true;
+            if (2 * outside > n) return false;
+            lo = end;
+        }
+        return false;
+    }
+
+    private void mergeRuns() {
+        int n = a.length;
+        int lo = 0, hi = extendRun(0);
+        while (hi < n) {
+            int next = extendRun(hi);
+            int p = boundaryPower(lo, hi, next, n);
+            // Boundaries deeper in the merge tree than this one are merged first.
+            while (pending > 0 && power[pending - 1] > p) {
+                pending--;
+                merge(start[pending], lo, hi);
+                lo = start[pending];
+            }
+            start[pending] = lo;
+            power[pending] = p;
+            pending++;
+            lo = hi;
+            hi = next;
+        }
+        while (pending > 0) {
+            pending--;
+            merge(start[pending], lo, n);
+            lo = start[pending];
+        }
+    }
+
+    /** Makes the natural run at {@code lo} ascending, extends it to {@link #MIN_RUN} if shorter, and returns its end. */
+    private int extendRun(int lo) {
+        int n = a.length;
+        int len = ascendingRun(a, lo, n, o);
+        if (len < MIN_RUN) {
+            int end = Math.min(n, lo + MIN_RUN);
+            binaryInsertionSort(a, lo, end, lo + len, o);
+            return end;
+        }
+        return lo + len;
+    }
+
+    /**
+     * Depth in the merge tree of the boundary between runs [lo, mid) and
+     * [mid, hi): the number of leading bits that the midpoints of the two
+     * runs, as fractions of {@code n}, have in common, plus one.
+     */
+    static int boundaryPower(int lo, int mid, int hi, int n) {
+        // Twice each midpoint, so both stay integers; compared against 2n.
+        long x = (long) lo + mid, y = (long) mid + hi, twoN = 2L * n;
+        int p = 0;
+        while (true) {
+            p++;
+            x <<= 1;
+            y <<= 1;
+            if (x >= twoN) {
+                x -= twoN;
+                y -= twoN;
+            } else if (y >= twoN) {
+                return p;
+            }
+        }
+    }
+
+    /** Merges the sorted runs [lo, mid) and [mid, hi) stably. */
+    private void merge(int lo, int mid, int hi) {
+        o.compare(mid - 1, mid);
+        if (a[mid - 1] <= a[mid]) return;
+        // Left elements not greater than the right run's first element, and right
+        // elements not less than the left run's last element, are already in place.
+        lo = searchForward(a, lo, mid, a[mid], true, mid);
+        hi = searchBackward(a, mid, hi, a[mid - 1], false, mid - 1);
+        if (mid - lo <= hi - mid) {
+            mergeForward(lo, mid, hi);
+        } else {
+            mergeBackward(lo, mid, hi);
+        }
+    }
+
+    /** Copies the left run out and fills the array from the front. */
+    private void mergeForward(int lo, int mid, int hi) {
+        int leftLen = mid - lo;
+        int[] t = scratch(leftLen);
+        System.arraycopy(a, lo, t, 0, leftLen);
+        int i = 0, j = mid, d = lo;
+        int leftWins = 0, rightWins = 0;
+        while (i < leftLen && j < hi) {
+            o.compare(j, j);
+            if (a[j] < t[i]) {
+                Sorts.set(a, d++, a[j++], o);
+                leftWins = 0;
+                if (++rightWins >= GALLOP_AFTER && j < hi) {
+                    int end = searchForward(a, j, hi, t[i], false, -1);
+                    while (j < end) Sorts.set(a, d++, a[j++], o);
+                    rightWins = 0;
+                }
+            } else {
+                Sorts.set(a, d++, t[i++], o);
+                rightWins = 0;
+                if (++leftWins >= GALLOP_AFTER && i < leftLen) {
+                    int end = searchForward(t, i, leftLen, a[j], true, j);
+                    while (i < end) Sorts.set(a, d++, t[i++], o);
+                    leftWins = 0;
+                }
+            }
+        }
+        // Whatever remains of the right run is already in place.
+        while (i < leftLen) Sorts.set(a, d++, t[i++], o);
+    }
+
+    /** Copies the right run out and fills the array from the back. */
+    private void mergeBackward(int lo, int mid, int hi) {
+        int rightLen = hi - mid;
+        int[] t = scratch(rightLen);
+        System.arraycopy(a, mid, t, 0, rightLen);
+        int i = mid - 1, j = rightLen - 1, d = hi - 1;
+        int leftWins = 0, rightWins = 0;
+        while (i >= lo && j >= 0) {
+            o.compare(i, i);
+            if (t[j] < a[i]) {
+                Sorts.set(a, d--, a[i--], o);
+                rightWins = 0;
+                if (++leftWins >= GALLOP_AFTER && i >= lo) {
+                    int end = searchBackward(a, lo, i + 1, t[j], true, -1);
+                    while (i >= end) Sorts.set(a, d--, a[i--], o);
+                    leftWins = 0;
+                }
+            } else {
+                Sorts.set(a, d--, t[j--], o);
+                leftWins = 0;
+                if (++rightWins >= GALLOP_AFTER && j >= 0) {
+                    int end = searchBackward(t, 0, j + 1, a[i], false, i);
+                    while (j >= end) Sorts.set(a, d--, t[j--], o);
+                    rightWins = 0;
+                }
+            }
+        }
+        // Whatever remains of the left run is already in place.
+        while (j >= 0) Sorts.set(a, d--, t[j--], o);
+    }
+
+    /**
+     * First index in the sorted run[from, to) whose element is greater than
+     * {@code key}, or not less than it if {@code afterEqual} is false. Probes
+     * from the front at exponentially growing steps, then binary searches the
+     * last step, so a boundary k places from the front costs O(log k).
+     * {@code keyAt} is the key's index in the array, or -1 if it is not there.
+     */
+    private int searchForward(int[] run, int from, int to, int key, boolean afterEqual, int keyAt) {
+        int below = from - 1, step = 1;
+        int probe = from;
+        while (probe < to && before(run, probe, key, afterEqual, keyAt)) {
+            below = probe;
+            step <<= 1;
+            probe = to - probe > step ? probe + step : to;
+        }
+        return boundary(run, below + 1, Math.min(probe, to), key, afterEqual, keyAt);
+    }
+
+    /** Like {@link #searchForward}, probing from the back, so a boundary k places from the end costs O(log k). */
+    private int searchBackward(int[] run, int from, int to, int key, boolean afterEqual, int keyAt) {
+        int above = to, step = 1;
+        int probe = to - 1;
+        while (probe >= from && !before(run, probe, key, afterEqual, keyAt)) {
+            above = probe;
+            step <<= 1;
+            probe = probe - from >= step ? probe - step : from - 1;
+        }
+        return boundary(run, Math.max(probe + 1, from), above, key, afterEqual, keyAt);
+    }
+
+    /** Binary search for the boundary within [lo, hi), where every element before lo is known to come first. */
+    private int boundary(int[] run, int lo, int hi, int key, boolean afterEqual, int keyAt) {
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (before(run, m, key, afterEqual, keyAt)) lo = m + 1;
+            else hi = m;
+        }
+        return lo;
+    }
+
+    /** Whether run[index] belongs before the boundary for {@code key}. */
+    private boolean before(int[] run, int index, int key, boolean afterEqual, int keyAt) {
+        if (run == a) o.compare(index, keyAt >= 0 ? keyAt : index);
+        else o.compare(keyAt, keyAt);
+        return afterEqual ? run[index] <= key : run[index] < key;
+    }
+
+    private int[] scratch(int length) {
+        if (scratch.length < length) {
+            int size = Math.max(length, Math.min(a.length / 2, scratch.length * 2));
+            scratch = new int[size];
+            o.allocate(4L * size);
+        }
+        return scratch;
+    }
+
+    /** End of the natural run starting at {@code lo}: non-descending, or strictly descending. */
+    private static int runEnd(int[] array, int lo, int hi, SortObserver o) {
+        int runHi = lo + 1;
+        if (runHi == hi) return hi;
+        o.compare(lo, runHi);
+        boolean descending = array[runHi] < array[lo];
+        for (runHi++; runHi < hi; runHi++) {
+            o.compare(runHi - 1, runHi);
+            if (descending ? array[runHi] >= array[runHi - 1] : array[runHi] < array[runHi - 1]) break;
+        }
+        return runHi;
+    }
+
+    /** Returns the length of the natural run at {@code lo}, reversing it first if it is strictly descending. */
+    static int ascendingRun(int[] array, int lo, int hi, SortObserver o) {
+        int end = runEnd(array, lo, hi, o);
+        if (end - lo > 1 && array[lo + 1] < array[lo]) {
+            for (int i = lo, j = end - 1; i < j; i++, j--) {
+                Sorts.swap(array, i, j, o);
+            }
+        }
+        return end - lo;
+    }
+
+    /**
+     * Insertion sort of [lo, hi) where [lo, start) is already sorted. Each
+     * insertion point is found by binary search, after any equal elements so
+     * the sort stays stable.
+     */
+    static void binaryInsertionSort(int[] array, int lo, int hi, int start, SortObserver o) {
+        if (start == lo) start++;
+        for (; start < hi; start++) {
+            int pivot = array[start];
+            int left = lo, right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                o.compare(mid, start);
+                if (pivot < array[mid]) right = mid;
+                else left = mid + 1;
+            }
+            for (int i = start; i > left; i--) {
+                Sorts.set(array, i, array[i - 1], o);
+            }
+            if (left != start) Sorts.set(array, left, pivot, o);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes large int arrays without going through Strings.
+ *
+ * Binary files are raw 32-bit ints and are read through memory-mapped
+ * windows. Text files hold integers separated by commas, whitespace or
+ * newlines. They are mapped the same way and parsed straight from the
+ * bytes, with no per-line Strings and no Integer.parseInt.
+ */
+public final class ArrayLoader {
+    /** Size of each mapped window; a multiple of 4 so ints never straddle two windows. */
+    private static final long WINDOW = 1L << 30;
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    private ArrayLoader() {
+    }
+
+    public static int[] readBinary(Path file, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % 4 != 0) {
+                throw new IOException(file + ": size " + bytes + " is not a multiple of 4");
+            }
+            long count = bytes / 4;
+            if (count > Integer.MAX_VALUE - 8) {
+                throw new IOException(file + ": " + count + " ints do not fit in one array");
+            }
+            int[] array = new int[(int) count];
+            int offset = 0;
+            for (long position = 0; position < bytes; position += WINDOW) {
+                long length = Math.min(WINDOW, bytes - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int ints = (int) (length / 4);
+                window.order(order).asIntBuffer().get(array, offset, ints);
+                offset += ints;
+            }
+            return array;
+        }
+    }
+
+    public static void writeBinary(Path file, int[] array, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_CHUNK * 4).order(order);
+            for (int offset = 0; offset < array.length; offset += WRITE_CHUNK) {
+                int length = Math.min(WRITE_CHUNK, array.length - offset);
+                buffer.clear();
+                buffer.asIntBuffer().put(array, offset, length);
+                buffer.limit(length * 4);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    public static int[] readText(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            TextParser parser = new TextParser((int) Math.min(Integer.MAX_VALUE - 8, bytes / 2 + 1));
+            for (long position = 0; position < bytes; position += WINDOW) {
+                long length = Math.min(WINDOW, bytes - position);
+                parser.feed(channel.map(FileChannel.MapMode.READ_ONLY, position, length), position);
+            }
+            return parser.finish();
+        }
+    }
+
+    /** Parses integers from text held in memory, e.g. the contents of the input field. */
+    public static int[] parseText(byte[] text) {
+        TextParser parser = new TextParser(text.length / 2 + 1);
+        parser.feed(ByteBuffer.wrap(text), 0);
+        return parser.finish();
+    }
+
+    /**
+     * Byte-level integer parser. State is kept between calls to {@link #feed},
+     * so a number split across two mapped windows is still read correctly.
+     */
+    private static final class TextParser {
+        private int[] values;
+        private int count;
+        private long value;
+        private boolean negative;
+        private boolean inNumber;
+        private boolean signOnly;
+
+        TextParser(int initialCapacity) {
+            values = new int[Math.max(16, Math.min(initialCapacity, 1 << 24))];
+        }
+
+        void feed(ByteBuffer buffer, long basePosition) {
+            int limit = buffer.limit();
+            for (int i = buffer.position(); i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    if (value > 1L + Integer.MAX_VALUE) {
+                        throw new NumberFormatException("Value out of int range at byte " + (basePosition + i));
+                    }
+                    inNumber = true;
+                    signOnly = false;
+                } else if ((b == '-' || b == '+') && !inNumber && !signOnly) {
+                    negative = b == '-';
+                    signOnly = true;
+                } else if (b == ',' || b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ';') {
+                    if (signOnly) {
+                        throw new NumberFormatException("Sign without digits at byte " + (basePosition + i));
+                    }
+                    end();
+                } else {
+                    throw new NumberFormatException("Unexpected character '" + (char) b
+                            + "' at byte " + (basePosition + i));
+                }
+            }
+        }
+
+        private void end() {
+            if (!inNumber) return;
+            long v = negative ? -value : value;
+            if (v > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Value out of int range: " + v);
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(Integer.MAX_VALUE - 8, values.length * 2L));
+            }
+            values[count++] = (int) v;
+            value = 0;
+            negative = false;
+            inNumber = false;
+        }
+
+        int[] finish() {
+            if (signOnly) {
+                throw new NumberFormatException("Sign without digits at end of input");
+            }
+            end();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+}
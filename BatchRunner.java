@@ -0,0 +1,312 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs every algorithm over a matrix of sizes, input shapes and seeds on a
+ * pool of worker threads and summarizes the timings, as a repeatable
+ * replacement for the single run behind the panel rankings.
+ *
+ * Each cell is warmed up, then timed over a number of repetitions. A
+ * repetition times as many sorts as it takes to fill at least a millisecond,
+ * so small inputs are not lost in timer resolution. One more run with
+ * {@link SortMetrics} attached supplies the operation counts. Cells run
+ * concurrently when there is more than one worker, which finishes sooner but
+ * lets the cells compete for cores and cache; use one worker for numbers
+ * that are meant to be compared with each other.
+ */
+public class BatchRunner {
+    private static final long MIN_SAMPLE_NANOS = 1_000_000L;
+
+    static final String CSV_HEADER = "algorithm,shape,n,seed,repetitions,median_ns,p95_ns,mean_ns,stddev_ns,"
+            + "min_ns,comparisons,swaps,writes,aux_bytes,max_depth,note";
+
+    private List<String> algorithms = SortAlgorithms.names();
+    private int[] sizes = {1_000, 100_000};
+    private List<InputGenerator.Distribution> shapes = Arrays.asList(InputGenerator.Distribution.values());
+    private long[] seeds = {42};
+    private int warmup = 3;
+    private int repetitions = 10;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private long budgetNanos = 5_000_000_000L;
+
+    /** Summary of one (algorithm, shape, size, seed) cell. */
+    static final class Cell {
+        final String algorithm;
+        final InputGenerator.Distribution shape;
+        final int size;
+        final long seed;
+        int repetitions;
+        double median, p95, mean, stddev, min;
+        SortMetrics metrics;
+        String note = "";
+
+        Cell(String algorithm, InputGenerator.Distribution shape, int size, long seed) {
+            this.algorithm = algorithm;
+            this.shape = shape;
+            this.size = size;
+            this.seed = seed;
+        }
+    }
+
+    public BatchRunner algorithms(List<String> names) {
+        for (String name : names) {
+            if (SortAlgorithms.get(name) == null) {
+                throw new IllegalArgumentException("Unknown algorithm '" + name + "', expected one of " + SortAlgorithms.names());
+            }
+        }
+        this.algorithms = names;
+        return this;
+    }
+
+    public BatchRunner sizes(int... sizes) {
+        this.sizes = sizes;
+        return this;
+    }
+
+    public BatchRunner shapes(List<InputGenerator.Distribution> shapes) {
+        this.shapes = shapes;
+        return this;
+    }
+
+    public BatchRunner seeds(long... seeds) {
+        this.seeds = seeds;
+        return this;
+    }
+
+    public BatchRunner warmup(int runs) {
+        this.warmup = Math.max(0, runs);
+        return this;
+    }
+
+    public BatchRunner repetitions(int runs) {
+        this.repetitions = Math.max(1, runs);
+        return this;
+    }
+
+    public BatchRunner workers(int threads) {
+        this.workers = Math.max(1, threads);
+        return this;
+    }
+
+    /** Cells whose first run takes longer than this are reported without statistics. */
+    public BatchRunner budgetMillis(long millis) {
+        this.budgetNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    /**
+     * Runs the whole matrix and returns the cells ordered by shape, size, seed
+     * and median time. {@code progress} is told about each finished cell.
+     */
+    public List<Cell> run(Consumer<Cell> progress) throws InterruptedException {
+        List<Cell> cells = new ArrayList<>();
+        for (String algorithm : algorithms) {
+            for (InputGenerator.Distribution shape : shapes) {
+                for (int size : sizes) {
+                    for (long seed : seeds) {
+                        cells.add(new Cell(algorithm, shape, size, seed));
+                    }
+                }
+            }
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "batch-worker-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<Cell> done = new ExecutorCompletionService<>(pool);
+            for (Cell cell : cells) {
+                done.submit(() -> measure(cell));
+            }
+            for (int i = 0; i < cells.size(); i++) {
+                try {
+                    progress.accept(done.take().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Batch cell failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        cells.sort(Comparator.comparing((Cell c) -> c.shape)
+                .thenComparingInt(c -> c.size)
+                .thenComparingLong(c -> c.seed)
+                .thenComparingDouble(c -> c.note.isEmpty() ? c.median : Double.MAX_VALUE));
+        return cells;
+    }
+
+    private Cell measure(Cell cell) {
+        SortAlgorithm algorithm = SortAlgorithms.get(cell.algorithm);
+        int[] source = InputGenerator.generate(cell.shape, cell.size, cell.seed);
+        int[] work = new int[source.length];
+        try {
+            System.arraycopy(source, 0, work, 0, source.length);
+            long probe = System.nanoTime();
+            algorithm.sort(work);
+            probe = System.nanoTime() - probe;
+            if (!Sorts.isSorted(work)) {
+                cell.note = "failed: output not sorted";
+                return cell;
+            }
+            if (probe > budgetNanos) {
+                cell.repetitions = 1;
+                cell.median = cell.p95 = cell.mean = cell.min = probe;
+                cell.note = "over budget, single run";
+                return cell;
+            }
+
+            int opsPerSample = (int) Math.min(1_000_000, Math.max(1, MIN_SAMPLE_NANOS / Math.max(1, probe)));
+            for (int i = 0; i < warmup; i++) {
+                sample(algorithm, source, work, opsPerSample);
+            }
+            double[] samples = new double[repetitions];
+            for (int i = 0; i < repetitions; i++) {
+                samples[i] = sample(algorithm, source, work, opsPerSample);
+            }
+            summarize(cell, samples);
+
+            System.arraycopy(source, 0, work, 0, source.length);
+            cell.metrics = new SortMetrics(source.length);
+            algorithm.sort(work, cell.metrics);
+            cell.metrics.setNanos((long) cell.median);
+        } catch (StackOverflowError e) {
+            cell.note = "failed: StackOverflowError";
+        } catch (OutOfMemoryError e) {
+            cell.note = "failed: OutOfMemoryError";
+        }
+        return cell;
+    }
+
+    /** Mean time of {@code ops} sorts, each on a fresh copy of the source; the copy is not timed. */
+    private static double sample(SortAlgorithm algorithm, int[] source, int[] work, int ops) {
+        long total = 0;
+        for (int i = 0; i < ops; i++) {
+            System.arraycopy(source, 0, work, 0, source.length);
+            long start = System.nanoTime();
+            algorithm.sort(work);
+            total += System.nanoTime() - start;
+        }
+        return (double) total / ops;
+    }
+
+    private static void summarize(Cell cell, double[] samples) {
+        Arrays.sort(samples);
+        int n = samples.length;
+        double sum = 0;
+        for (double s : samples) sum += s;
+        double mean = sum / n;
+        double squares = 0;
+        for (double s : samples) squares += (s - mean) * (s - mean);
+        cell.repetitions = n;
+        cell.min = samples[0];
+        cell.median = n % 2 == 1 ? samples[n / 2] : (samples[n / 2 - 1] + samples[n / 2]) / 2;
+        cell.p95 = samples[Math.min(n - 1, (int) Math.ceil(0.95 * n) - 1)];
+        cell.mean = mean;
+        cell.stddev = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+    }
+
+    static String toCsv(List<Cell> cells) {
+        StringBuilder sb = new StringBuilder(CSV_HEADER).append('\n');
+        for (Cell c : cells) {
+            SortMetrics m = c.metrics;
+            sb.append(String.format(Locale.ROOT, "\"%s\",%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%s,\"%s\"%n",
+                    c.algorithm.replace("\"", "\"\""), c.shape.label(), c.size, c.seed, c.repetitions,
+                    c.median, c.p95, c.mean, c.stddev, c.min,
+                    m == null ? ",,,," : m.comparisons() + "," + m.swaps() + "," + m.writes() + ","
+                            + m.auxBytes() + "," + m.maxDepth(),
+                    c.note.replace("\"", "\"\"")));
+        }
+        return sb.toString();
+    }
+
+    static String toJson(List<Cell> cells) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            SortMetrics m = c.metrics;
+            sb.append(String.format(Locale.ROOT,
+                    "  {\"algorithm\":\"%s\",\"shape\":\"%s\",\"n\":%d,\"seed\":%d,\"repetitions\":%d,"
+                            + "\"medianNs\":%.1f,\"p95Ns\":%.1f,\"meanNs\":%.1f,\"stddevNs\":%.1f,\"minNs\":%.1f,",
+                    escapeJson(c.algorithm), c.shape.label(), c.size, c.seed, c.repetitions,
+                    c.median, c.p95, c.mean, c.stddev, c.min));
+            if (m != null) {
+                sb.append(String.format(Locale.ROOT,
+                        "\"comparisons\":%d,\"swaps\":%d,\"writes\":%d,\"auxBytes\":%d,\"maxDepth\":%d,",
+                        m.comparisons(), m.swaps(), m.writes(), m.auxBytes(), m.maxDepth()));
+            }
+            sb.append("\"note\":\"").append(escapeJson(c.note)).append("\"}");
+            sb.append(i < cells.size() - 1 ? ",\n" : "\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    /** One table per shape and size, fastest median first. */
+    static String toHtml(List<Cell> cells) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Sort batch report</title>\n")
+          .append("<style>body{font-family:Arial,sans-serif}table{border-collapse:collapse;margin-bottom:24px}")
+          .append("th,td{border:1px solid #bdc3c7;padding:4px 8px;text-align:right}")
+          .append("td:nth-child(2){text-align:left}th{background:#ecf0f1}</style></head><body>\n")
+          .append("<h1>Sort batch report</h1>\n");
+        String group = null;
+        int rank = 0;
+        for (Cell c : cells) {
+            String key = c.shape.label() + ", n = " + c.size + ", seed " + c.seed;
+            if (!key.equals(group)) {
+                if (group != null) sb.append("</table>\n");
+                group = key;
+                rank = 0;
+                sb.append("<h2>").append(escapeHtml(key)).append("</h2>\n<table>\n")
+                  .append("<tr><th>#</th><th>Algorithm</th><th>Median ms</th><th>p95 ms</th><th>Stddev ms</th>")
+                  .append("<th>Comparisons</th><th>Swaps</th><th>Writes</th><th>Aux bytes</th><th>Note</th></tr>\n");
+            }
+            SortMetrics m = c.metrics;
+            sb.append(String.format(Locale.ROOT,
+                    "<tr><td>%s</td><td>%s</td><td>%.3f</td><td>%.3f</td><td>%.3f</td>"
+                            + "<td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>%n",
+                    c.note.isEmpty() ? String.valueOf(++rank) : "-", escapeHtml(c.algorithm),
+                    c.median / 1e6, c.p95 / 1e6, c.stddev / 1e6,
+                    m == null ? "" : String.format(Locale.ROOT, "%,d", m.comparisons()),
+                    m == null ? "" : String.format(Locale.ROOT, "%,d", m.swaps()),
+                    m == null ? "" : String.format(Locale.ROOT, "%,d", m.writes()),
+                    m == null ? "" : String.format(Locale.ROOT, "%,d", m.auxBytes()),
+                    escapeHtml(c.note)));
+        }
+        if (group != null) sb.append("</table>\n");
+        return sb.append("</body></html>\n").toString();
+    }
+
+    /** Writes the report in the format implied by the file extension: .json, .html/.htm or CSV. */
+    static void write(List<Cell> cells, Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        String content = name.endsWith(".json") ? toJson(cells)
+                : name.endsWith(".html") || name.endsWith(".htm") ? toHtml(cells) : toCsv(cells);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escapeJson(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
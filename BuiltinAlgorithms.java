@@ -0,0 +1,654 @@
+/**
+ * The algorithms that ship with the visualizer, registered with
+ * {@link java.util.ServiceLoader} through META-INF/services/SortAlgorithm.
+ * Each one delegates to {@link Sorts}, {@link ParallelSorts},
+ * {@link RadixSorts}, {@link AdaptiveSort}, {@link VectorSort} or
+ * {@link HeapSorts} and carries the source shown in the code viewer.
+ */
+public final class BuiltinAlgorithms {
+
+    private BuiltinAlgorithms() {
+    }
+
+    /** The built-ins in display order, used when the service file is not on the classpath. */
+    static SortAlgorithm[] defaults() {
+        return new SortAlgorithm[] {
+            new BubbleSort(),
+            new SelectionSort(),
+            new InsertionSort(),
+            new MergeSort(),
+            new QuickSort(),
+            new HeapSort(),
+            new ParallelMergeSort(),
+            new ParallelQuickSort(),
+            new PingPongMergeSort(),
+            new BottomUpMergeSort(),
+            new IntroSort(),
+            new CountingSort(),
+            new LsdRadixSort8(),
+            new LsdRadixSort11(),
+            new LsdRadixSort16(),
+            new AmericanFlagSort(),
+            new AdaptiveSortAlgorithm(),
+            new VectorQuickSort(),
+            new BottomUpHeapSort(),
+            new DAryHeapSort4(),
+            new DAryHeapSort8()
+        };
+    }
+
+    abstract static class Builtin implements SortAlgorithm {
+        private final String name;
+        private final String code;
+
+        Builtin(String name, String code) {
+            this.name = name;
+            this.code = code;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String code() {
+            return code;
+        }
+    }
+
+    public static final class BubbleSort extends Builtin {
+        public BubbleSort() {
+            super("Bubble Sort",
+                "// Bubble Sort - O(n²)\n" +
+                "void bubbleSort(int[] arr) {\n" +
+                "    for (int i = 0; i < arr.length - 1; i++) {\n" +
+                "        for (int j = 0; j < arr.length - i - 1; j++) {\n" +
+                "            if (arr[j] > arr[j + 1]) {\n" +
+                "                // Swap arr[j] and arr[j+1]\n" +
+                "                int temp = arr[j];\n" +
+                "                arr[j] = arr[j + 1];\n" +
+                "                arr[j + 1] = temp;\n" +
+                "            }\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.bubbleSort(array, o);
+        }
+    }
+
+    public static final class SelectionSort extends Builtin {
+        public SelectionSort() {
+            super("Selection Sort",
+                "// Selection Sort - O(n²)\n" +
+                "void selectionSort(int[] arr) {\n" +
+                "    for (int i = 0; i < arr.length - 1; i++) {\n" +
+                "        int minIdx = i;\n" +
+                "        for (int j = i + 1; j < arr.length; j++) {\n" +
+                "            if (arr[j] < arr[minIdx]) {\n" +
+                "                minIdx = j;\n" +
+                "            }\n" +
+                "        }\n" +
+                "        // Swap arr[i] and arr[minIdx]\n" +
+                "        int temp = arr[i];\n" +
+                "        arr[i] = arr[minIdx];\n" +
+                "        arr[minIdx] = temp;\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.selectionSort(array, o);
+        }
+    }
+
+    public static final class InsertionSort extends Builtin {
+        public InsertionSort() {
+            super("Insertion Sort",
+                "// Insertion Sort - O(n²)\n" +
+                "void insertionSort(int[] arr) {\n" +
+                "    for (int i = 1; i < arr.length; i++) {\n" +
+                "        int key = arr[i];\n" +
+                "        int j = i - 1;\n" +
+                "        while (j >= 0 && arr[j] > key) {\n" +
+                "            arr[j + 1] = arr[j];\n" +
+                "            j--;\n" +
+                "        }\n" +
+                "        arr[j + 1] = key;\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.insertionSort(array, o);
+        }
+    }
+
+    public static final class MergeSort extends Builtin {
+        public MergeSort() {
+            super("Merge Sort",
+                "// Merge Sort - O(n log n)\n" +
+                "void mergeSort(int[] arr, int left, int right) {\n" +
+                "    if (left < right) {\n" +
+                "        int mid = (left + right) / 2;\n" +
+                "        mergeSort(arr, left, mid);\n" +
+                "        mergeSort(arr, mid + 1, right);\n" +
+                "        merge(arr, left, mid, right);\n" +
+                "    }\n" +
+                "}\n\n" +
+                "void merge(int[] arr, int l, int m, int r) {\n" +
+                "    // Create temp arrays and merge them\n" +
+                "    int[] L = Arrays.copyOfRange(arr, l, m + 1);\n" +
+                "    int[] R = Arrays.copyOfRange(arr, m + 1, r + 1);\n" +
+                "    int i = 0, j = 0, k = l;\n" +
+                "    while (i < L.length && j < R.length) {\n" +
+                "        arr[k++] = (L[i] <= R[j]) ? L[i++] : R[j++];\n" +
+                "    }\n" +
+                "    while (i < L.length) arr[k++] = L[i++];\n" +
+                "    while (j < R.length) arr[k++] = R[j++];\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.mergeSort(array, o);
+        }
+    }
+
+    public static final class QuickSort extends Builtin {
+        public QuickSort() {
+            super("Quick Sort",
+                "// Quick Sort - O(n log n) average\n" +
+                "void quickSort(int[] arr, int low, int high) {\n" +
+                "    if (low < high) {\n" +
+                "        int pi = partition(arr, low, high);\n" +
+                "        quickSort(arr, low, pi - 1);\n" +
+                "        quickSort(arr, pi + 1, high);\n" +
+                "    }\n" +
+                "}\n\n" +
+                "int partition(int[] arr, int low, int high) {\n" +
+                "    int pivot = arr[high];\n" +
+                "    int i = low - 1;\n" +
+                "    for (int j = low; j < high; j++) {\n" +
+                "        if (arr[j] < pivot) {\n" +
+                "            i++;\n" +
+                "            swap(arr, i, j);\n" +
+                "        }\n" +
+                "    }\n" +
+                "    swap(arr, i + 1, high);\n" +
+                "    return i + 1;\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.quickSort(array, o);
+        }
+    }
+
+    public static final class HeapSort extends Builtin {
+        public HeapSort() {
+            super("Heap Sort",
+                "// Heap Sort - O(n log n)\n" +
+                "void heapSort(int[] arr) {\n" +
+                "    int n = arr.length;\n" +
+                "    // Build max heap\n" +
+                "    for (int i = n / 2 - 1; i >= 0; i--) {\n" +
+                "        heapify(arr, n, i);\n" +
+                "    }\n" +
+                "    // Extract elements from heap\n" +
+                "    for (int i = n - 1; i > 0; i--) {\n" +
+                "        swap(arr, 0, i);\n" +
+                "        heapify(arr, i, 0);\n" +
+                "    }\n" +
+                "}\n\n" +
+                "void heapify(int[] arr, int n, int i) {\n" +
+                "    int largest = i, left = 2*i + 1, right = 2*i + 2;\n" +
+                "    if (left < n && arr[left] > arr[largest]) largest = left;\n" +
+                "    if (right < n && arr[right] > arr[largest]) largest = right;\n" +
+                "    if (largest != i) {\n" +
+                "        swap(arr, i, largest);\n" +
+                "        heapify(arr, n, largest);\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.heapSort(array, o);
+        }
+    }
+
+    public static final class ParallelMergeSort extends Builtin {
+        public ParallelMergeSort() {
+            super("Parallel Merge Sort",
+                "// Parallel Merge Sort - O(n log n), forks halves above a cutoff\n" +
+                "class MergeTask extends RecursiveAction {\n" +
+                "    protected void compute() {\n" +
+                "        if (to - from <= CUTOFF) {\n" +
+                "            mergeSort(arr, buf, from, to); // insertion sort below 32\n" +
+                "            return;\n" +
+                "        }\n" +
+                "        int mid = (from + to) >>> 1;\n" +
+                "        invokeAll(new MergeTask(arr, buf, from, mid),\n" +
+                "                  new MergeTask(arr, buf, mid, to));\n" +
+                "        merge(arr, buf, from, mid, to);\n" +
+                "    }\n" +
+                "}\n\n" +
+                "void merge(int[] arr, int[] buf, int from, int mid, int to) {\n" +
+                "    if (arr[mid - 1] <= arr[mid]) return;\n" +
+                "    System.arraycopy(arr, from, buf, from, mid - from);\n" +
+                "    int i = from, j = mid, k = from;\n" +
+                "    while (i < mid && j < to) {\n" +
+                "        arr[k++] = (buf[i] <= arr[j]) ? buf[i++] : arr[j++];\n" +
+                "    }\n" +
+                "    while (i < mid) arr[k++] = buf[i++];\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            ParallelSorts.parallelMergeSort(array, o);
+        }
+    }
+
+    public static final class ParallelQuickSort extends Builtin {
+        public ParallelQuickSort() {
+            super("Parallel Quick Sort",
+                "// Parallel Quick Sort - O(n log n) average, forks both sides\n" +
+                "class QuickTask extends RecursiveAction {\n" +
+                "    protected void compute() {\n" +
+                "        if (high - low < CUTOFF) {\n" +
+                "            quickSort(arr, low, high); // insertion sort below 32\n" +
+                "            return;\n" +
+                "        }\n" +
+                "        int p = partition(arr, low, high);\n" +
+                "        invokeAll(new QuickTask(arr, low, p),\n" +
+                "                  new QuickTask(arr, p + 1, high));\n" +
+                "    }\n" +
+                "}\n\n" +
+                "int partition(int[] arr, int low, int high) {\n" +
+                "    int pivot = medianOfThree(arr, low, (low + high) >>> 1, high);\n" +
+                "    int i = low - 1, j = high + 1;\n" +
+                "    while (true) {\n" +
+                "        do i++; while (arr[i] < pivot);\n" +
+                "        do j--; while (arr[j] > pivot);\n" +
+                "        if (i >= j) return j;\n" +
+                "        swap(arr, i, j);\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            ParallelSorts.parallelQuickSort(array, o);
+        }
+    }
+
+    public static final class PingPongMergeSort extends Builtin {
+        public PingPongMergeSort() {
+            super("Ping-Pong Merge Sort",
+                "// Ping-Pong Merge Sort - O(n log n), one buffer per run\n" +
+                "void sort(int[] arr) {\n" +
+                "    int[] buf = arr.clone();\n" +
+                "    sort(buf, arr, 0, arr.length);\n" +
+                "}\n\n" +
+                "// Sorts dst[from, to) using src (same elements) as scratch\n" +
+                "void sort(int[] src, int[] dst, int from, int to) {\n" +
+                "    if (to - from <= 32) {\n" +
+                "        insertionSort(dst, from, to);\n" +
+                "        return;\n" +
+                "    }\n" +
+                "    int mid = (from + to) >>> 1;\n" +
+                "    sort(dst, src, from, mid);   // roles swap each level\n" +
+                "    sort(dst, src, mid, to);\n" +
+                "    merge(src, dst, from, mid, to);\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.pingPongMergeSort(array, o);
+        }
+    }
+
+    public static final class BottomUpMergeSort extends Builtin {
+        public BottomUpMergeSort() {
+            super("Bottom-Up Merge Sort",
+                "// Bottom-Up Merge Sort - O(n log n), one buffer per run\n" +
+                "void sort(int[] arr) {\n" +
+                "    int n = arr.length;\n" +
+                "    for (int i = 0; i < n; i += 32)\n" +
+                "        insertionSort(arr, i, Math.min(i + 32, n));\n" +
+                "    int[] src = arr, dst = new int[n];\n" +
+                "    for (int width = 32; width < n; width *= 2) {\n" +
+                "        for (int from = 0; from < n; from += 2 * width)\n" +
+                "            merge(src, dst, from, Math.min(from + width, n),\n" +
+                "                  Math.min(from + 2 * width, n));\n" +
+                "        int[] t = src; src = dst; dst = t;\n" +
+                "    }\n" +
+                "    if (src != arr) System.arraycopy(src, 0, arr, 0, n);\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.bottomUpMergeSort(array, o);
+        }
+    }
+
+    public static final class IntroSort extends Builtin {
+        public IntroSort() {
+            super("Intro Sort",
+                "// Intro Sort - O(n log n) worst case\n" +
+                "void introSort(int[] arr, int from, int to, int depth) {\n" +
+                "    while (to - from > 32) {\n" +
+                "        if (depth-- == 0) { heapSort(arr, from, to); return; }\n" +
+                "        int pivot = arr[ninther(arr, from, to)];\n" +
+                "        // 3-way partition: < pivot | == pivot | > pivot\n" +
+                "        int lt = from, i = from, gt = to - 1;\n" +
+                "        while (i <= gt) {\n" +
+                "            if (arr[i] < pivot) swap(arr, lt++, i++);\n" +
+                "            else if (arr[i] > pivot) swap(arr, i, gt--);\n" +
+                "            else i++;\n" +
+                "        }\n" +
+                "        // Recurse into the smaller side, loop on the larger\n" +
+                "        if (lt - from < to - gt - 1) {\n" +
+                "            introSort(arr, from, lt, depth);\n" +
+                "            from = gt + 1;\n" +
+                "        } else {\n" +
+                "            introSort(arr, gt + 1, to, depth);\n" +
+                "            to = lt;\n" +
+                "        }\n" +
+                "    }\n" +
+                "    insertionSort(arr, from, to);\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            Sorts.introSort(array, o);
+        }
+    }
+
+    public static final class CountingSort extends Builtin {
+        public CountingSort() {
+            super("Counting Sort",
+                "// Counting Sort - O(n + k), k = max - min + 1\n" +
+                "void countingSort(int[] arr) {\n" +
+                "    int min = min(arr), max = max(arr);\n" +
+                "    int[] counts = new int[max - min + 1];\n" +
+                "    for (int v : arr) counts[v - min]++;\n" +
+                "    int k = 0;\n" +
+                "    for (int d = 0; d < counts.length; d++) {\n" +
+                "        for (int c = counts[d]; c > 0; c--) {\n" +
+                "            arr[k++] = min + d;\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            RadixSorts.countingSort(array, o);
+        }
+    }
+
+    /** LSD radix sort with a fixed digit width; one subclass per width, since services need no-arg constructors. */
+    abstract static class LsdRadixSort extends Builtin {
+        private final int bits;
+
+        LsdRadixSort(int bits) {
+            super("LSD Radix Sort (" + bits + "-bit)",
+                "// LSD Radix Sort - O(n * 32 / bits)\n" +
+                "void lsdRadixSort(int[] arr, int bits) {\n" +
+                "    int mask = (1 << bits) - 1;\n" +
+                "    int[] src = arr, dst = new int[arr.length];\n" +
+                "    for (int shift = 0; shift < 32; shift += bits) {\n" +
+                "        int[] offsets = new int[mask + 2];\n" +
+                "        for (int v : src) offsets[digit(v, shift, mask) + 1]++;\n" +
+                "        for (int d = 0; d <= mask; d++) offsets[d + 1] += offsets[d];\n" +
+                "        // Stable scatter by the current digit\n" +
+                "        for (int v : src) dst[offsets[digit(v, shift, mask)]++] = v;\n" +
+                "        int[] t = src; src = dst; dst = t;\n" +
+                "    }\n" +
+                "    if (src != arr) System.arraycopy(src, 0, arr, 0, arr.length);\n" +
+                "}\n" +
+                "\n" +
+                "// Flipping the sign bit orders negative values first\n" +
+                "int digit(int v, int shift, int mask) {\n" +
+                "    return ((v ^ Integer.MIN_VALUE) >>> shift) & mask;\n" +
+                "}");
+            this.bits = bits;
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            RadixSorts.lsdRadixSort(array, bits, o);
+        }
+    }
+
+    public static final class LsdRadixSort8 extends LsdRadixSort {
+        public LsdRadixSort8() {
+            super(8);
+        }
+    }
+
+    public static final class LsdRadixSort11 extends LsdRadixSort {
+        public LsdRadixSort11() {
+            super(11);
+        }
+    }
+
+    public static final class LsdRadixSort16 extends LsdRadixSort {
+        public LsdRadixSort16() {
+            super(16);
+        }
+    }
+
+    public static final class AmericanFlagSort extends Builtin {
+        public AmericanFlagSort() {
+            super("American Flag Sort",
+                "// American Flag Sort - in-place MSD radix, O(n * 4)\n" +
+                "void americanFlagSort(int[] arr, int from, int to, int shift) {\n" +
+                "    if (to - from <= 32) { insertionSort(arr, from, to); return; }\n" +
+                "    int[] end = new int[256], next = new int[256];\n" +
+                "    for (int i = from; i < to; i++) end[digit(arr[i], shift)]++;\n" +
+                "    for (int d = 0, start = from; d < 256; d++) {\n" +
+                "        next[d] = start;\n" +
+                "        start += end[d];\n" +
+                "        end[d] = start;\n" +
+                "    }\n" +
+                "    // Swap each element into its bucket, following cycles\n" +
+                "    for (int d = 0; d < 256; d++) {\n" +
+                "        while (next[d] < end[d]) {\n" +
+                "            int b = digit(arr[next[d]], shift);\n" +
+                "            if (b == d) next[d]++;\n" +
+                "            else swap(arr, next[d], next[b]++);\n" +
+                "        }\n" +
+                "    }\n" +
+                "    if (shift == 0) return;\n" +
+                "    for (int d = 0, start = from; d < 256; start = end[d++]) {\n" +
+                "        americanFlagSort(arr, start, end[d], shift - 8);\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            RadixSorts.americanFlagSort(array, o);
+        }
+    }
+
+    public static final class AdaptiveSortAlgorithm extends Builtin {
+        public AdaptiveSortAlgorithm() {
+            super("Adaptive Sort",
+                "// Adaptive Sort - O(n) on sorted input, O(n log n) worst case\n" +
+                "void adaptiveSort(int[] arr) {\n" +
+                "    if (!mostlyInLongRuns(arr)) { introSort(arr); return; }\n" +
+                "    int lo = 0, hi = extendRun(arr, 0);\n" +
+                "    while (hi < arr.length) {\n" +
+                "        // Natural run, reversed if strictly descending and\n" +
+                "        // extended to 32 elements with binary insertion sort\n" +
+                "        int next = extendRun(arr, hi);\n" +
+                "        // Powersort: merge pending runs whose boundary lies\n" +
+                "        // deeper in the merge tree than [lo, hi) | [hi, next)\n" +
+                "        int p = boundaryPower(lo, hi, next, arr.length);\n" +
+                "        while (!stack.isEmpty() && stack.top().power > p) {\n" +
+                "            int from = stack.pop().start;\n" +
+                "            merge(arr, from, lo, hi);\n" +
+                "            lo = from;\n" +
+                "        }\n" +
+                "        stack.push(lo, p);\n" +
+                "        lo = hi; hi = next;\n" +
+                "    }\n" +
+                "    mergeAllPending();\n" +
+                "}\n" +
+                "\n" +
+                "// Merges skip elements already in place, copy out the\n" +
+                "// shorter run, and after 8 wins in a row by one side\n" +
+                "// move its whole streak, found by exponential search\n" +
+                "void merge(int[] arr, int lo, int mid, int hi) {\n" +
+                "    lo = firstGreater(arr, lo, mid, arr[mid]);\n" +
+                "    hi = firstNotLess(arr, mid, hi, arr[mid - 1]);\n" +
+                "    if (mid - lo <= hi - mid) mergeForward(arr, lo, mid, hi);\n" +
+                "    else mergeBackward(arr, lo, mid, hi);\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            AdaptiveSort.adaptiveSort(array, o);
+        }
+    }
+
+    public static final class VectorQuickSort extends Builtin {
+        public VectorQuickSort() {
+            super("Vector Quick Sort",
+                "// Vector Quick Sort - O(n log n), SIMD partition when available\n" +
+                "void vectorQuickSort(int[] arr, int from, int to) {\n" +
+                "    while (to - from > 16) {\n" +
+                "        int pivot = arr[ninther(arr, from, to)];\n" +
+                "        // Out-of-place: each element is stored to both sides\n" +
+                "        // and only one cursor moves, so there is no branch\n" +
+                "        int less = 0, more = n;\n" +
+                "        for (int i = from; i < to; i++) {\n" +
+                "            int v = arr[i], isLess = v < pivot ? 1 : 0;\n" +
+                "            scratch[less] = v;\n" +
+                "            scratch[more] = v;\n" +
+                "            less += isLess;\n" +
+                "            more += 1 - isLess;\n" +
+                "        }\n" +
+                "        copyBack(scratch, arr, from, less, more);\n" +
+                "        int mid = from + less;\n" +
+                "        if (mid == from) { from += splitEqual(arr, from, to, pivot); continue; }\n" +
+                "        vectorQuickSort(arr, from, mid);\n" +
+                "        from = mid;\n" +
+                "    }\n" +
+                "    // Branch-free min/max sorting network for <= 16 elements\n" +
+                "    for (int[] c : NETWORK_16) {\n" +
+                "        int x = arr[from + c[0]], y = arr[from + c[1]];\n" +
+                "        arr[from + c[0]] = Math.min(x, y);\n" +
+                "        arr[from + c[1]] = Math.max(x, y);\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            VectorSort.vectorQuickSort(array, o);
+        }
+    }
+
+    public static final class BottomUpHeapSort extends Builtin {
+        public BottomUpHeapSort() {
+            super("Bottom-Up Heap Sort",
+                "// Bottom-Up Heap Sort - O(n log n), ~n log n comparisons\n" +
+                "void bottomUpHeapSort(int[] arr) {\n" +
+                "    int n = arr.length;\n" +
+                "    for (int i = n / 2 - 1; i >= 0; i--) siftDown(arr, i, n);\n" +
+                "    for (int end = n - 1; end > 0; end--) {\n" +
+                "        int displaced = arr[end];\n" +
+                "        arr[end] = arr[0];\n" +
+                "        // Floyd: move the hole down along the larger\n" +
+                "        // children to a leaf, one comparison per level...\n" +
+                "        int hole = 0;\n" +
+                "        for (int c = 1; c < end; c = 2 * hole + 1) {\n" +
+                "            if (c + 1 < end && arr[c + 1] > arr[c]) c++;\n" +
+                "            arr[hole] = arr[c];\n" +
+                "            hole = c;\n" +
+                "        }\n" +
+                "        // ...then sift the displaced element back up,\n" +
+                "        // which rarely takes more than a level or two\n" +
+                "        while (hole > 0 && arr[(hole - 1) / 2] < displaced) {\n" +
+                "            arr[hole] = arr[(hole - 1) / 2];\n" +
+                "            hole = (hole - 1) / 2;\n" +
+                "        }\n" +
+                "        arr[hole] = displaced;\n" +
+                "    }\n" +
+                "}");
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            HeapSorts.bottomUpHeapSort(array, o);
+        }
+    }
+
+    abstract static class DAryHeapSort extends Builtin {
+        private final int d;
+
+        DAryHeapSort(int d) {
+            super(d + "-ary Heap Sort",
+                "// " + d + "-ary Heap Sort - O(n log n), log_" + d + " n levels\n" +
+                "// The d children of node i are arr[d*i + 1 .. d*i + d],\n" +
+                "// next to each other, so each level reads one or two\n" +
+                "// cache lines and the heap is shallower than a binary one\n" +
+                "void dAryHeapSort(int[] arr, int d) {\n" +
+                "    int n = arr.length;\n" +
+                "    for (int i = (n - 2) / d; i >= 0; i--) siftDown(arr, i, n, d);\n" +
+                "    for (int end = n - 1; end > 0; end--) {\n" +
+                "        int displaced = arr[end];\n" +
+                "        arr[end] = arr[0];\n" +
+                "        int hole = 0;\n" +
+                "        for (int c = 1; c < end; c = d * hole + 1) {\n" +
+                "            int largest = c;\n" +
+                "            for (int k = c + 1; k < Math.min(c + d, end); k++)\n" +
+                "                if (arr[k] > arr[largest]) largest = k;\n" +
+                "            arr[hole] = arr[largest];\n" +
+                "            hole = largest;\n" +
+                "        }\n" +
+                "        while (hole > 0 && arr[(hole - 1) / d] < displaced) {\n" +
+                "            arr[hole] = arr[(hole - 1) / d];\n" +
+                "            hole = (hole - 1) / d;\n" +
+                "        }\n" +
+                "        arr[hole] = displaced;\n" +
+                "    }\n" +
+                "}");
+            this.d = d;
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver o) {
+            HeapSorts.dAryHeapSort(array, d, o);
+        }
+    }
+
+    public static final class DAryHeapSort4 extends DAryHeapSort {
+        public DAryHeapSort4() {
+            super(4);
+        }
+    }
+
+    public static final class DAryHeapSort8 extends DAryHeapSort {
+        public DAryHeapSort8() {
+            super(8);
+        }
+    }
+}
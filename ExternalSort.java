@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sorts binary int files that do not fit on the heap.
+ *
+ * The input is read in runs of {@link #runSize(int)} ints. Each run is sorted
+ * in memory with one of the regular algorithms and written to a temporary
+ * file. The runs are then k-way merged through a min-heap of run indices,
+ * at most {@link #fanIn(int)} at a time, with every file read and written
+ * through its own fixed-size NIO buffer. Peak heap use is about one run
+ * plus the algorithm's own scratch space. The last pass writes to a
+ * temporary file next to the output, which is moved into place only once
+ * it is complete.
+ */
+public class ExternalSort {
+    private long memoryBudget = 64L << 20;
+    private int runSize;
+    private int fanIn = 128;
+    private Consumer<int[]> algorithm = Sorts::introSort;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    private Path tempDir;
+
+    /** Total memory to aim for; runs default to a quarter of it so scratch-using sorts still fit. */
+    public ExternalSort memoryBudget(long bytes) {
+        this.memoryBudget = bytes;
+        return this;
+    }
+
+    /** Ints per in-memory run; 0 derives it from the memory budget. */
+    public ExternalSort runSize(int ints) {
+        this.runSize = ints;
+        return this;
+    }
+
+    /** Maximum number of runs merged in one pass. */
+    public ExternalSort fanIn(int runs) {
+        this.fanIn = Math.max(2, runs);
+        return this;
+    }
+
+    public ExternalSort algorithm(Consumer<int[]> algorithm) {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    public ExternalSort order(ByteOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    public ExternalSort tempDir(Path dir) {
+        this.tempDir = dir;
+        return this;
+    }
+
+    public void sort(Path input, Path output) throws IOException {
+        int ints = runSize > 0 ? runSize : (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1024, memoryBudget / 16));
+        Path dir = tempDir != null ? tempDir : output.toAbsolutePath().getParent();
+        List<Path> runs = new ArrayList<>(), merged = new ArrayList<>();
+        Path partial = null;
+        try {
+            createRuns(input, dir, ints, runs);
+            while (runs.size() > fanIn) {
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    Path target = Files.createTempFile(dir, "sort-merge-", ".bin");
+                    merged.add(target);
+                    merge(group, target);
+                    for (Path run : group) Files.deleteIfExists(run);
+                }
+                runs = merged;
+                merged = new ArrayList<>();
+            }
+            partial = Files.createTempFile(output.toAbsolutePath().getParent(), "sort-output-", ".bin");
+            merge(runs, partial);
+            Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            partial = null;
+        } finally {
+            for (Path run : runs) Files.deleteIfExists(run);
+            for (Path run : merged) Files.deleteIfExists(run);
+            if (partial != null) Files.deleteIfExists(partial);
+        }
+    }
+
+    private void createRuns(Path input, Path dir, int ints, List<Path> runs) throws IOException {
+        int[] run = new int[(int) Math.min(ints, Files.size(input) / 4)];
+        try (IntReader reader = new IntReader(input, bufferBytes(2), order)) {
+            while (true) {
+                int count = reader.read(run);
+                if (count == 0) break;
+                int[] chunk = count == run.length ? run : Arrays.copyOf(run, count);
+                algorithm.accept(chunk);
+                Path file = Files.createTempFile(dir, "sort-run-", ".bin");
+                runs.add(file);
+                try (IntWriter writer = new IntWriter(file, bufferBytes(2), order)) {
+                    writer.write(chunk, count);
+                }
+            }
+        }
+    }
+
+    private void merge(List<Path> runs, Path output) throws IOException {
+        int k = runs.size();
+        IntReader[] readers = new IntReader[k];
+        try (IntWriter writer = new IntWriter(output, bufferBytes(k + 1), order)) {
+            for (int i = 0; i < k; i++) {
+                readers[i] = new IntReader(runs.get(i), bufferBytes(k + 1), order);
+            }
+
+            // Min-heap of run indices ordered by each run's current head value.
+            int[] heap = new int[k];
+            int[] head = new int[k];
+            int n = 0;
+            for (int i = 0; i < k; i++) {
+                if (readers[i].hasNext()) {
+                    head[i] = readers[i].next();
+                    heap[n++] = i;
+                }
+            }
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                siftDown(heap, head, n, i);
+            }
+            while (n > 0) {
+                int r = heap[0];
+                writer.write(head[r]);
+                if (readers[r].hasNext()) {
+                    head[r] = readers[r].next();
+                } else {
+                    heap[0] = heap[--n];
+                }
+                siftDown(heap, head, n, 0);
+            }
+        } finally {
+            for (IntReader reader : readers) {
+                if (reader != null) reader.close();
+            }
+        }
+    }
+
+    /** Same shape as {@code Sorts.heapify}, but iterative and ordered as a min-heap on head values. */
+    private static void siftDown(int[] heap, int[] head, int n, int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = 2 * i + 2;
+            if (left < n && head[heap[left]] < head[heap[smallest]]) smallest = left;
+            if (right < n && head[heap[right]] < head[heap[smallest]]) smallest = right;
+            if (smallest == i) return;
+            int temp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = temp;
+            i = smallest;
+        }
+    }
+
+    /** Splits a slice of the memory budget between {@code parts} open buffers. */
+    private int bufferBytes(int parts) {
+        long bytes = memoryBudget / 4 / parts;
+        return (int) Math.max(4096, Math.min(1 << 24, bytes & ~3L));
+    }
+
+    /** Buffered sequential reader of big- or little-endian ints. */
+    static final class IntReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private final IntBuffer ints;
+        private boolean eof;
+
+        IntReader(Path file, int bufferBytes, ByteOrder order) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            bytes = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            ints = bytes.asIntBuffer();
+            bytes.limit(0);
+            ints.limit(0);
+        }
+
+        boolean hasNext() throws IOException {
+            return ints.hasRemaining() || fill();
+        }
+
+        int next() throws IOException {
+            if (!hasNext()) throw new IOException("Read past end of file");
+            return ints.get();
+        }
+
+        /** Reads up to {@code target.length} ints and returns how many were read. */
+        int read(int[] target) throws IOException {
+            int count = 0;
+            while (count < target.length && hasNext()) {
+                int length = Math.min(ints.remaining(), target.length - count);
+                ints.get(target, count, length);
+                count += length;
+            }
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            if (eof) return false;
+            bytes.position(ints.position() * 4);
+            bytes.compact();
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            if (eof && bytes.position() % 4 != 0) {
+                throw new IOException("File size is not a multiple of 4");
+            }
+            bytes.flip();
+            ints.clear();
+            ints.limit(bytes.limit() / 4);
+            return ints.hasRemaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** Buffered sequential writer of big- or little-endian ints. */
+    static final class IntWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private final IntBuffer ints;
+
+        IntWriter(Path file, int bufferBytes, ByteOrder order) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            bytes = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            ints = bytes.asIntBuffer();
+        }
+
+        void write(int value) throws IOException {
+            if (!ints.hasRemaining()) flush();
+            ints.put(value);
+        }
+
+        void write(int[] values, int count) throws IOException {
+            int offset = 0;
+            while (offset < count) {
+                if (!ints.hasRemaining()) flush();
+                int length = Math.min(ints.remaining(), count - offset);
+                ints.put(values, offset, length);
+                offset += length;
+            }
+        }
+
+        private void flush() throws IOException {
+            bytes.clear();
+            bytes.limit(ints.position() * 4);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            ints.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
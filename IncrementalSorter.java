@@ -0,0 +1,319 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Keeps the last sorted result of an algorithm and re-sorts only what changed.
+ *
+ * {@link #update(int[])} compares a new input with the previous one. When
+ * both have the same length they are compared position by position, and
+ * each changed position counts as its old value removed and its new value
+ * added, however far apart the edits are. Otherwise values in their common
+ * prefix and suffix are unchanged and everything in between counts as
+ * removed and added, which covers an appended batch and an insertion in the
+ * middle. Removed values are dropped from the previous sorted result in one
+ * pass and added values are appended after the survivors. Then:
+ * <ul>
+ *   <li>up to {@link #insertionLimit(int)} added values are placed by binary
+ *       insertion into the sorted prefix;</li>
+ *   <li>larger batches are sorted on their own with the algorithm and merged
+ *       into the prefix from the back, starting at the first element the
+ *       batch displaces;</li>
+ *   <li>once removed plus added values exceed {@link #fullSortFraction(double)}
+ *       of the input, the new input is sorted from scratch.</li>
+ * </ul>
+ * The observer only sees the work on the delta, so a panel replaying it
+ * animates the insertions and the merge rather than a whole sort.
+ */
+public final class IncrementalSorter {
+    public enum Strategy {
+        /** Nothing was added; removals, if any, were applied when the update was made. */
+        NONE,
+        INSERTION,
+        MERGE,
+        FULL;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final SortAlgorithm algorithm;
+    private int insertionLimit = 32;
+    private double fullSortFraction = 0.25;
+
+    private int[] lastInput;
+    private int[] lastSorted;
+    private long version;
+
+    public IncrementalSorter(SortAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /** Largest number of added values placed by binary insertion instead of sort-then-merge. */
+    public IncrementalSorter insertionLimit(int values) {
+        this.insertionLimit = Math.max(0, values);
+        return this;
+    }
+
+    /** Share of the input that may change before an update falls back to a full sort. */
+    public IncrementalSorter fullSortFraction(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1, was " + fraction);
+        }
+        this.fullSortFraction = fraction;
+        return this;
+    }
+
+    /** Forgets the last result, so the next update is a full sort. */
+    public synchronized void reset() {
+        lastInput = null;
+        lastSorted = null;
+        version++;
+    }
+
+    /** Sorts {@code input} incrementally and keeps the result for the next call; the input is not modified. */
+    public int[] sort(int[] input) {
+        Update update = update(input);
+        int[] working = update.working.clone();
+        update.sort(working, SortObserver.NONE);
+        update.commit(working);
+        return working;
+    }
+
+    /** Plans a full sort of {@code input} whose result still becomes the base of later updates. */
+    public Update full(int[] input) {
+        long base;
+        synchronized (this) {
+            base = version;
+        }
+        int[] copy = input.clone();
+        return new Update(Strategy.FULL, copy, copy, 0, 0, 0, base);
+    }
+
+    /** Plans the re-sort of {@code input} against the last committed result. */
+    public Update update(int[] input) {
+        int[] previous, previousSorted;
+        long base;
+        synchronized (this) {
+            previous = lastInput;
+            previousSorted = lastSorted;
+            base = version;
+        }
+        if (previous == null) return full(input);
+
+        int limit = Math.min(previous.length, input.length);
+        int prefix = 0;
+        while (prefix < limit && previous[prefix] == input[prefix]) prefix++;
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && previous[previous.length - 1 - suffix] == input[input.length - 1 - suffix]) {
+            suffix++;
+        }
+        int[] removed, added;
+        if (previous.length == input.length) {
+            int changed = 0;
+            for (int i = prefix; i < input.length - suffix; i++) {
+                if (previous[i] != input[i]) changed++;
+            }
+            removed = new int[changed];
+            added = new int[changed];
+            for (int i = prefix, k = 0; k < changed; i++) {
+                if (previous[i] != input[i]) {
+                    removed[k] = previous[i];
+                    added[k++] = input[i];
+                }
+            }
+        } else {
+            removed = Arrays.copyOfRange(previous, prefix, previous.length - suffix);
+            added = Arrays.copyOfRange(input, prefix, input.length - suffix);
+        }
+        return plan(input.clone(), previousSorted, removed, added, base);
+    }
+
+    /**
+     * Plans removing and adding the given values to the last committed
+     * result. The next {@link #update(int[])} then compares against that
+     * result in sorted order.
+     *
+     * @throws IllegalStateException if nothing has been committed yet
+     * @throws IllegalArgumentException if a removed value is not present
+     */
+    public Update edit(int[] removed, int[] added) {
+        int[] previousSorted;
+        long base;
+        synchronized (this) {
+            previousSorted = lastSorted;
+            base = version;
+        }
+        if (previousSorted == null) {
+            throw new IllegalStateException("Nothing has been sorted yet");
+        }
+        return plan(null, previousSorted, removed.clone(), added.clone(), base);
+    }
+
+    private Update plan(int[] input, int[] previousSorted, int[] removed, int[] added, long base) {
+        int n = previousSorted.length - removed.length + added.length;
+        boolean large = removed.length + added.length > fullSortFraction * n;
+        if (large && input != null) {
+            return new Update(Strategy.FULL, input, input, 0, removed.length, added.length, base);
+        }
+
+        int[] working = new int[n];
+        int survivors = removeAll(previousSorted, removed, working);
+        System.arraycopy(added, 0, working, survivors, added.length);
+        Strategy strategy = added.length == 0 ? Strategy.NONE
+                : large ? Strategy.FULL
+                : added.length <= insertionLimit ? Strategy.INSERTION : Strategy.MERGE;
+        return new Update(strategy, input, working, survivors, removed.length, added.length, base);
+    }
+
+    /** Copies {@code sorted} without one occurrence of each removed value into {@code out}; returns the count. */
+    private static int removeAll(int[] sorted, int[] removed, int[] out) {
+        Arrays.sort(removed);
+        int r = 0, k = 0;
+        for (int v : sorted) {
+            if (r < removed.length && removed[r] <= v) {
+                if (removed[r] < v) break;
+                r++;
+                continue;
+            }
+            if (k == sorted.length - removed.length) break;
+            out[k++] = v;
+        }
+        if (r < removed.length) {
+            throw new IllegalArgumentException("Value " + removed[r] + " is not in the sorted array");
+        }
+        return k;
+    }
+
+    private synchronized void commit(Update update, int[] sorted) {
+        if (update.base != version) return;
+        lastSorted = sorted;
+        lastInput = update.input != null ? update.input : sorted;
+        version++;
+    }
+
+    /**
+     * One planned re-sort. {@link #sort(int[], SortObserver)} may be run any
+     * number of times on fresh copies of {@link #workingArray()}, for example
+     * once timed and once traced; {@link #commit(int[])} then makes one
+     * result the base of the next update.
+     */
+    public final class Update {
+        private final Strategy strategy;
+        private final int[] input;
+        private final int[] working;
+        private final int sortedPrefix;
+        private final int removed;
+        private final int added;
+        private final long base;
+
+        private Update(Strategy strategy, int[] input, int[] working, int sortedPrefix,
+                       int removed, int added, long base) {
+            this.strategy = strategy;
+            this.input = input;
+            this.working = working;
+            this.sortedPrefix = sortedPrefix;
+            this.removed = removed;
+            this.added = added;
+            this.base = base;
+        }
+
+        public Strategy strategy() { return strategy; }
+        public int removed() { return removed; }
+        public int added() { return added; }
+
+        /** Length of the already sorted part at the start of the working array. */
+        public int sortedPrefix() { return sortedPrefix; }
+
+        /** A fresh copy of the array to sort: the sorted survivors followed by the added values, or the whole input. */
+        public int[] workingArray() {
+            return working.clone();
+        }
+
+        /** Sorts a copy of the working array in place, reporting the operations to {@code o}. */
+        public void sort(int[] array, SortObserver o) {
+            if (array.length != working.length) {
+                throw new IllegalArgumentException("Expected " + working.length + " elements, got " + array.length);
+            }
+            switch (strategy) {
+                case INSERTION:
+                    AdaptiveSort.binaryInsertionSort(array, 0, array.length, sortedPrefix, o);
+                    break;
+                case MERGE:
+                    int[] tail = Arrays.copyOfRange(array, sortedPrefix, array.length);
+                    o.allocate(4L * tail.length);
+                    algorithm.sort(tail, offset(o, sortedPrefix));
+                    System.arraycopy(tail, 0, array, sortedPrefix, tail.length);
+                    mergeTail(array, sortedPrefix, o);
+                    break;
+                case FULL:
+                    algorithm.sort(array, o);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Keeps {@code sorted}, the result of {@link #sort}, as the base of the
+         * next update. Ignored if another update was committed since this one
+         * was planned. The array must not be modified afterwards.
+         */
+        public void commit(int[] sorted) {
+            IncrementalSorter.this.commit(this, sorted);
+        }
+
+        /** Short description such as "merge +120/-3". */
+        @Override
+        public String toString() {
+            return strategy.label() + " +" + added + "/-" + removed;
+        }
+    }
+
+    /**
+     * Merges the sorted tail starting at {@code mid} into the sorted prefix
+     * before it. Prefix elements up to the tail's minimum stay in place; the
+     * rest is merged from the back with only the tail copied out.
+     */
+    static void mergeTail(int[] array, int mid, SortObserver o) {
+        int n = array.length;
+        if (mid == 0 || mid == n) return;
+        o.compare(mid - 1, mid);
+        if (array[mid - 1] <= array[mid]) return;
+
+        int first = array[mid], lo = 0, hi = mid - 1;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            o.compare(m, mid);
+            if (first < array[m]) hi = m;
+            else lo = m + 1;
+        }
+
+        int[] tail = Arrays.copyOfRange(array, mid, n);
+        o.allocate(4L * tail.length);
+        int i = mid - 1, j = tail.length - 1, k = n - 1;
+        while (j >= 0 && i >= lo) {
+            o.compare(i, mid + j);
+            if (array[i] > tail[j]) Sorts.set(array, k--, array[i--], o);
+            else Sorts.set(array, k--, tail[j--], o);
+        }
+        while (j >= 0) {
+            Sorts.set(array, k--, tail[j--], o);
+        }
+    }
+
+    /** Reports events on a sub-array at {@code offset}; sorted markers are dropped as the tail is merged afterwards. */
+    private static SortObserver offset(SortObserver o, int offset) {
+        if (o == SortObserver.NONE || offset == 0) return o;
+        return new SortObserver() {
+            @Override public void compare(int i, int j) { o.compare(offset + i, offset + j); }
+            @Override public void swap(int i, int j) { o.swap(offset + i, offset + j); }
+            @Override public void write(int index, int oldValue, int newValue) { o.write(offset + index, oldValue, newValue); }
+            @Override public void sorted(int boundary) { }
+            @Override public void depth(int depth) { o.depth(depth); }
+            @Override public void allocate(long bytes) { o.allocate(bytes); }
+            @Override public boolean isThreadSafe() { return o.isThreadSafe(); }
+        };
+    }
+}
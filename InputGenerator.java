@@ -0,0 +1,224 @@
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Reproducible test inputs for the panels, the benchmarks and the CLI.
+ *
+ * The array is filled in fixed-size chunks. Each chunk draws from its own
+ * {@link SplittableRandom}, seeded from one root generator. The same seed
+ * therefore gives the same array whether the chunks are filled on one
+ * thread or in parallel, and arrays of hundreds of millions of elements are
+ * filled on every core.
+ */
+public final class InputGenerator {
+    private static final int CHUNK = 1 << 16;
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    public enum Distribution {
+        /** Uniform over [0, bound), or over all ints when no bound is set. */
+        UNIFORM,
+        /** Normal around bound / 2 with a standard deviation of bound / 8, clamped to [0, bound). */
+        GAUSSIAN,
+        /** Ranks 1..bound with probability proportional to 1 / rank^exponent. */
+        ZIPF,
+        SORTED,
+        REVERSED,
+        /** Ascending to the middle, then descending. */
+        ORGAN_PIPE,
+        /** Uniform over {@link #unique(int)} distinct values. */
+        FEW_UNIQUE,
+        /** Sorted, then {@link #swaps(int)} random pairs exchanged (1% of n by default). */
+        NEARLY_SORTED,
+        /** Ascending runs of length sqrt(n). */
+        SAWTOOTH,
+        /** Sorted, with the last 1% replaced by uniform values: a sorted feed with new records appended. */
+        SORTED_TAIL;
+
+        /** Parses names such as "organ-pipe" or "NEARLY_SORTED"; "random" is accepted for uniform. */
+        public static Distribution parse(String name) {
+            String s = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            return s.equals("RANDOM") ? UNIFORM : valueOf(s);
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Distribution distribution;
+    private long seed = 42;
+    private int bound;
+    private int swaps = -1;
+    private int unique = 8;
+    private double exponent = 1.0;
+    private boolean parallel = true;
+
+    public InputGenerator(Distribution distribution) {
+        this.distribution = distribution;
+    }
+
+    public static int[] generate(Distribution distribution, int n, long seed) {
+        return new InputGenerator(distribution).seed(seed).generate(n);
+    }
+
+    public InputGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /** Exclusive upper bound for the random distributions; 0 picks a default for each. */
+    public InputGenerator bound(int bound) {
+        this.bound = Math.max(0, bound);
+        return this;
+    }
+
+    public InputGenerator swaps(int swaps) {
+        this.swaps = swaps;
+        return this;
+    }
+
+    public InputGenerator unique(int values) {
+        this.unique = Math.max(1, values);
+        return this;
+    }
+
+    public InputGenerator zipfExponent(double exponent) {
+        if (!(exponent > 0)) throw new IllegalArgumentException("Zipf exponent must be positive, was " + exponent);
+        this.exponent = exponent;
+        return this;
+    }
+
+    public InputGenerator parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public int[] generate(int n) {
+        int[] array = new int[n];
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] chunkSeeds = new long[chunks];
+        for (int c = 0; c < chunks; c++) {
+            chunkSeeds[c] = root.nextLong();
+        }
+
+        Zipf zipf = distribution == Distribution.ZIPF ? new Zipf(bound > 0 ? bound : 1000, exponent) : null;
+        IntStream range = IntStream.range(0, chunks);
+        if (parallel && n >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(c -> {
+            SplittableRandom random = new SplittableRandom(chunkSeeds[c]);
+            int from = c * CHUNK, to = Math.min(n, from + CHUNK);
+            for (int i = from; i < to; i++) {
+                array[i] = value(i, n, random, zipf);
+            }
+        });
+
+        if (distribution == Distribution.NEARLY_SORTED) {
+            int k = swaps >= 0 ? swaps : Math.max(1, n / 100);
+            for (int s = 0; s < k && n > 1; s++) {
+                int i = root.nextInt(n), j = root.nextInt(n);
+                int t = array[i];
+                array[i] = array[j];
+                array[j] = t;
+            }
+        }
+        return array;
+    }
+
+    private int value(int i, int n, SplittableRandom random, Zipf zipf) {
+        switch (distribution) {
+            case UNIFORM:
+                return bound > 0 ? random.nextInt(bound) : random.nextInt();
+            case GAUSSIAN: {
+                int b = bound > 0 ? bound : 1 << 30;
+                long v = Math.round(b / 2.0 + gaussian(random) * b / 8.0);
+                return (int) Math.max(0, Math.min(b - 1, v));
+            }
+            case ZIPF:
+                return zipf.sample(random);
+            case SORTED:
+            case NEARLY_SORTED:
+                return i;
+            case REVERSED:
+                return n - i;
+            case ORGAN_PIPE:
+                return i < n / 2 ? i : n - i;
+            case FEW_UNIQUE:
+                return random.nextInt(unique);
+            case SAWTOOTH:
+                return i % Math.max(1, (int) Math.sqrt(n));
+            case SORTED_TAIL:
+                return i < n - n / 100 ? i : random.nextInt(Math.max(1, n));
+            default:
+                throw new AssertionError(distribution);
+        }
+    }
+
+    /** Standard normal by the Marsaglia polar method; SplittableRandom has no nextGaussian before Java 17. */
+    private static double gaussian(SplittableRandom random) {
+        double u, v, s;
+        do {
+            u = 2 * random.nextDouble() - 1;
+            v = 2 * random.nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    /**
+     * Zipf sampler using rejection-inversion (Hörmann and Derflinger), which
+     * takes constant expected time per sample and needs no table, so the
+     * number of ranks can be as large as an int.
+     */
+    private static final class Zipf {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        Zipf(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            hIntegralX1 = hIntegral(1.5) - 1;
+            hIntegralN = hIntegral(n + 0.5);
+            s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                if (k < 1) k = 1;
+                else if (k > n) k = n;
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return expm1OverX((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(log1pOverX(t) * x);
+        }
+
+        private static double log1pOverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        private static double expm1OverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join versions of merge sort and quick sort.
+ *
+ * Ranges at or below the sequential cutoff are sorted on the current thread,
+ * and ranges at or below {@link #INSERTION_THRESHOLD} use insertion sort.
+ * When the observer is not thread-safe (e.g. a {@link SortTrace}) the same
+ * task tree is walked on the calling thread instead of being forked, so the
+ * recorded trace stays consistent.
+ */
+public final class ParallelSorts {
+    public static final int DEFAULT_CUTOFF = 1 << 13;
+    public static final int INSERTION_THRESHOLD = Sorts.INSERTION_THRESHOLD;
+
+    private ParallelSorts() {
+    }
+
+    public static void parallelMergeSort(int[] array) {
+        parallelMergeSort(array, SortObserver.NONE);
+    }
+
+    public static void parallelMergeSort(int[] array, SortObserver o) {
+        parallelMergeSort(array, DEFAULT_CUTOFF, o);
+    }
+
+    public static void parallelMergeSort(int[] array, int cutoff, SortObserver o) {
+        if (array.length < 2) return;
+        o.allocate(4L * array.length);
+        MergeTask task = new MergeTask(array, new int[array.length], 0, array.length, 0,
+                Math.max(INSERTION_THRESHOLD, cutoff), o);
+        run(task, o);
+    }
+
+    public static void parallelQuickSort(int[] array) {
+        parallelQuickSort(array, SortObserver.NONE);
+    }
+
+    public static void parallelQuickSort(int[] array, SortObserver o) {
+        parallelQuickSort(array, DEFAULT_CUTOFF, o);
+    }
+
+    public static void parallelQuickSort(int[] array, int cutoff, SortObserver o) {
+        if (array.length < 2) return;
+        QuickTask task = new QuickTask(array, 0, array.length - 1, 0, Math.max(INSERTION_THRESHOLD, cutoff), o);
+        run(task, o);
+    }
+
+    private static void run(RecursiveAction task, SortObserver o) {
+        if (o.isThreadSafe()) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.invoke();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+        private final int[] array, buffer;
+        private final int from, to, depth, cutoff;
+        private final SortObserver o;
+
+        MergeTask(int[] array, int[] buffer, int from, int to, int depth, int cutoff, SortObserver o) {
+            this.array = array;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.cutoff = cutoff;
+            this.o = o;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= cutoff) {
+                mergeSort(array, buffer, from, to, depth, o);
+                return;
+            }
+            o.depth(depth);
+            int mid = (from + to) >>> 1;
+            MergeTask left = new MergeTask(array, buffer, from, mid, depth + 1, cutoff, o);
+            MergeTask right = new MergeTask(array, buffer, mid, to, depth + 1, cutoff, o);
+            if (o.isThreadSafe()) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+            merge(array, buffer, from, mid, to, o);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class QuickTask extends RecursiveAction {
+        private final int[] array;
+        private final int low, high, depth, cutoff;
+        private final SortObserver o;
+
+        QuickTask(int[] array, int low, int high, int depth, int cutoff, SortObserver o) {
+            this.array = array;
+            this.low = low;
+            this.high = high;
+            this.depth = depth;
+            this.cutoff = cutoff;
+            this.o = o;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low < cutoff) {
+                quickSort(array, low, high, depth, o);
+                return;
+            }
+            o.depth(depth);
+            int p = partition(array, low, high, o);
+            QuickTask left = new QuickTask(array, low, p, depth + 1, cutoff, o);
+            QuickTask right = new QuickTask(array, p + 1, high, depth + 1, cutoff, o);
+            if (o.isThreadSafe()) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+        }
+    }
+
+    /** Sequential merge sort of [from, to) with insertion-sort leaves. */
+    private static void mergeSort(int[] array, int[] buffer, int from, int to, int depth, SortObserver o) {
+        o.depth(depth);
+        if (to - from <= INSERTION_THRESHOLD) {
+            Sorts.insertionSort(array, from, to, o);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(array, buffer, from, mid, depth + 1, o);
+        mergeSort(array, buffer, mid, to, depth + 1, o);
+        merge(array, buffer, from, mid, to, o);
+    }
+
+    /** Merges [from, mid) and [mid, to) using the matching slice of {@code buffer}. */
+    private static void merge(int[] array, int[] buffer, int from, int mid, int to, SortObserver o) {
+        o.compare(mid - 1, mid);
+        if (array[mid - 1] <= array[mid]) return;
+
+        int n1 = mid - from;
+        System.arraycopy(array, from, buffer, from, n1);
+        int i = from, j = mid, k = from;
+        int leftEnd = from + n1;
+        while (i < leftEnd && j < to) {
+            o.compare(i, j);
+            if (buffer[i] <= array[j]) {
+                Sorts.set(array, k++, buffer[i++], o);
+            } else {
+                Sorts.set(array, k++, array[j++], o);
+            }
+        }
+        while (i < leftEnd) Sorts.set(array, k++, buffer[i++], o);
+    }
+
+    /** Sequential quick sort of [low, high] with insertion-sort leaves. */
+    private static void quickSort(int[] array, int low, int high, int depth, SortObserver o) {
+        o.depth(depth);
+        while (high - low >= INSERTION_THRESHOLD) {
+            int p = partition(array, low, high, o);
+            // Recurse into the smaller side and loop on the larger one.
+            if (p - low < high - p) {
+                quickSort(array, low, p, depth + 1, o);
+                low = p + 1;
+            } else {
+                quickSort(array, p + 1, high, depth + 1, o);
+                high = p;
+            }
+        }
+        Sorts.insertionSort(array, low, high + 1, o);
+    }
+
+    /**
+     * Hoare partition around the median of the first, middle and last element.
+     * Returns p such that every element of [low, p] is &lt;= every element of [p + 1, high].
+     */
+    private static int partition(int[] array, int low, int high, SortObserver o) {
+        int mid = (low + high) >>> 1;
+        sort3(array, low, mid, high, o);
+        int pivot = array[mid];
+        int i = low - 1, j = high + 1;
+        while (true) {
+            do {
+                i++;
+                o.compare(i, mid);
+            } while (array[i] < pivot);
+            do {
+                j--;
+                o.compare(j, mid);
+            } while (array[j] > pivot);
+            if (i >= j) return j;
+            Sorts.swap(array, i, j, o);
+        }
+    }
+
+    static void sort3(int[] array, int a, int b, int c, SortObserver o) {
+        o.compare(a, b);
+        if (array[b] < array[a]) Sorts.swap(array, a, b, o);
+        o.compare(b, c);
+        if (array[c] < array[b]) {
+            Sorts.swap(array, b, c, o);
+            o.compare(a, b);
+            if (array[b] < array[a]) Sorts.swap(array, a, b, o);
+        }
+    }
+}
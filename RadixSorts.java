@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * Non-comparison sorts for int arrays: counting sort, LSD radix sort and an
+ * in-place MSD radix sort (American flag sort). They order elements by the
+ * bits of their values, so they report writes and swaps but no comparisons,
+ * except inside the small buckets that the MSD sort insertion-sorts.
+ *
+ * Signed values are handled by flipping the sign bit of every key, which
+ * maps Integer.MIN_VALUE..Integer.MAX_VALUE onto 0..2^32-1 in order.
+ */
+public final class RadixSorts {
+    /** Largest value range counting sort allocates counts for before deferring to LSD radix. */
+    static final int MAX_COUNTING_RANGE = 1 << 24;
+    static final int DEFAULT_BITS = 11;
+    private static final int FLAG_BITS = 8;
+    private static final int FLAG_RADIX = 1 << FLAG_BITS;
+
+    private RadixSorts() {
+    }
+
+    /**
+     * Counts each value and writes the counts back in order. Needs a count per
+     * value between the minimum and maximum, so inputs whose range is large
+     * compared with their length are sorted with {@link #lsdRadixSort} instead.
+     */
+    public static void countingSort(int[] array) {
+        countingSort(array, SortObserver.NONE);
+    }
+
+    public static void countingSort(int[] array, SortObserver o) {
+        int n = array.length;
+        if (n < 2) return;
+        int min = array[0], max = array[0];
+        for (int v : array) {
+            if (v < min) min = v;
+            else if (v > max) max = v;
+        }
+        long range = (long) max - min + 1;
+        if (range > MAX_COUNTING_RANGE || range > 8L * n + 256) {
+            lsdRadixSort(array, DEFAULT_BITS, o);
+            return;
+        }
+
+        int[] counts = new int[(int) range];
+        o.allocate(4L * counts.length);
+        for (int v : array) {
+            counts[v - min]++;
+        }
+        int k = 0;
+        for (int d = 0; d < counts.length; d++) {
+            int value = min + d;
+            for (int c = counts[d]; c > 0; c--) {
+                Sorts.set(array, k++, value, o);
+            }
+        }
+    }
+
+    public static void lsdRadixSort(int[] array) {
+        lsdRadixSort(array, DEFAULT_BITS, SortObserver.NONE);
+    }
+
+    public static void lsdRadixSort(int[] array, SortObserver o) {
+        lsdRadixSort(array, DEFAULT_BITS, o);
+    }
+
+    /**
+     * Stable LSD radix sort with {@code bits}-wide digits, so 8, 11 and 16 bits
+     * take 4, 3 and 2 passes. The histograms of all digits are built in one
+     * read of the input, and passes whose digit is the same for every key are
+     * skipped. Each pass scatters into the other of two arrays; only writes
+     * into the caller's array are reported.
+     */
+    public static void lsdRadixSort(int[] array, int bits, SortObserver o) {
+        if (bits < 1 || bits > 16) {
+            throw new IllegalArgumentException("Digit width must be between 1 and 16 bits, was " + bits);
+        }
+        int n = array.length;
+        if (n < 2) return;
+        int radix = 1 << bits, mask = radix - 1;
+        int passes = (32 + bits - 1) / bits;
+
+        int[][] counts = new int[passes][radix];
+        for (int v : array) {
+            int key = v ^ Integer.MIN_VALUE;
+            for (int p = 0; p < passes; p++) {
+                counts[p][(key >>> (p * bits)) & mask]++;
+            }
+        }
+
+        int[] src = array, dst = new int[n];
+        o.allocate(4L * (n + passes * radix));
+        for (int p = 0; p < passes; p++) {
+            int shift = p * bits;
+            int[] offsets = counts[p];
+            if (offsets[digit(src[0], shift, mask)] == n) continue;
+            int sum = 0;
+            for (int d = 0; d < radix; d++) {
+                int c = offsets[d];
+                offsets[d] = sum;
+                sum += c;
+            }
+            SortObserver od = dst == array ? o : SortObserver.NONE;
+            for (int i = 0; i < n; i++) {
+                int v = src[i];
+                Sorts.set(dst, offsets[digit(v, shift, mask)]++, v, od);
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != array) {
+            for (int i = 0; i < n; i++) Sorts.set(array, i, src[i], o);
+        }
+    }
+
+    /**
+     * In-place MSD radix sort on 8-bit digits. Each level counts its digits,
+     * then swaps every element straight into its bucket by following cycles,
+     * and recurses into the buckets on the next digit. Buckets of up to
+     * {@link Sorts#INSERTION_THRESHOLD} elements are insertion-sorted.
+     */
+    public static void americanFlagSort(int[] array) {
+        americanFlagSort(array, SortObserver.NONE);
+    }
+
+    public static void americanFlagSort(int[] array, SortObserver o) {
+        if (array.length < 2) return;
+        int levels = 32 / FLAG_BITS;
+        int[][] ends = new int[levels][FLAG_RADIX];
+        int[][] next = new int[levels][FLAG_RADIX];
+        o.allocate(8L * levels * FLAG_RADIX);
+        americanFlagSort(array, 0, array.length, 0, ends, next, o);
+    }
+
+    private static void americanFlagSort(int[] array, int from, int to, int depth,
+                                         int[][] ends, int[][] next, SortObserver o) {
+        o.depth(depth);
+        if (to - from <= Sorts.INSERTION_THRESHOLD) {
+            Sorts.insertionSort(array, from, to, o);
+            return;
+        }
+        int shift = 32 - FLAG_BITS * (depth + 1);
+        int mask = FLAG_RADIX - 1;
+        int[] end = ends[depth], cursor = next[depth];
+
+        Arrays.fill(end, 0);
+        for (int i = from; i < to; i++) {
+            end[digit(array[i], shift, mask)]++;
+        }
+        int start = from;
+        for (int d = 0; d < FLAG_RADIX; d++) {
+            cursor[d] = start;
+            start += end[d];
+            end[d] = start;
+        }
+
+        for (int d = 0; d < FLAG_RADIX; d++) {
+            while (cursor[d] < end[d]) {
+                int b = digit(array[cursor[d]], shift, mask);
+                if (b == d) {
+                    cursor[d]++;
+                } else {
+                    Sorts.swap(array, cursor[d], cursor[b]++, o);
+                }
+            }
+        }
+
+        if (shift == 0) return;
+        start = from;
+        for (int d = 0; d < FLAG_RADIX; d++) {
+            if (end[d] - start > 1) {
+                americanFlagSort(array, start, end[d], depth + 1, ends, next, o);
+            }
+            start = end[d];
+        }
+    }
+
+    private static int digit(int value, int shift, int mask) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & mask;
+    }
+}
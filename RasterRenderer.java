@@ -0,0 +1,190 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Renders a large array as a dot plot straight into the pixels of a
+ * TYPE_INT_RGB {@link BufferedImage}, so the panel only has to blit it.
+ *
+ * Index i is drawn in column {@code i * width / n} at the height of its
+ * value. A per-pixel count lets several indices share a pixel, so each swap
+ * or write updates at most four pixels, with no rescan of the array. The
+ * renderer is attached to a live sort as its {@link SortObserver}. It also
+ * paces that sort to a fixed number of operations per display frame, so a
+ * million-element run stays watchable.
+ *
+ * The sort thread draws into pixels that only it touches. Once per frame it
+ * copies them into a {@link Frame} and publishes it through a lock-free
+ * triple buffer: the worker fills the back frame and exchanges it with the
+ * shared middle one, and the EDT exchanges its front frame for the middle
+ * one when that is newer. Neither side ever waits for the other, a frame is
+ * never written while the EDT holds it, and the atomic exchange makes the
+ * pixels visible to the EDT.
+ */
+public class RasterRenderer implements SortObserver {
+    private static final int BACKGROUND = 0xFFFFFF;
+    private static final int DOT = 0x95A5A6;
+    private static final int DONE = 0x2ECC71;
+
+    /** How many unpaced operations run between checks of whether a frame is due. */
+    private static final int UNPACED_CHECK = 4096;
+
+    private final int[] array;
+    private final int width, height;
+    private final int[] pixels;
+    private final int[] counts;
+    private final long min, range;
+    private final int stepsPerFrame;
+    private final long frameNanos;
+    private int steps;
+    private long totalSteps;
+    private long nextFrameNanos;
+    private long published;
+
+    private Frame back;
+    private final AtomicReference<Frame> middle;
+    private Frame front;
+
+    /** One published picture of the sort; not modified while the EDT holds it. */
+    public static final class Frame {
+        private final BufferedImage image;
+        private final int[] pixels;
+        private long sequence;
+        private long steps;
+        private boolean done;
+
+        private Frame(int width, int height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        public BufferedImage image() { return image; }
+        /** Operations the sort had reported when this frame was drawn. */
+        public long steps() { return steps; }
+        public boolean isDone() { return done; }
+    }
+
+    /**
+     * @param array the array being sorted; it is read, never written
+     * @param stepsPerFrame operations to allow between pauses, or 0 to run unpaced
+     */
+    public RasterRenderer(int[] array, int width, int height, int stepsPerFrame, long frameNanos) {
+        this.array = array;
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        this.stepsPerFrame = stepsPerFrame;
+        this.frameNanos = frameNanos;
+        pixels = new int[this.width * this.height];
+        counts = new int[pixels.length];
+        Arrays.fill(pixels, BACKGROUND);
+
+        long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+        for (int v : array) {
+            lo = Math.min(lo, v);
+            hi = Math.max(hi, v);
+        }
+        min = array.length == 0 ? 0 : lo;
+        range = array.length == 0 ? 1 : Math.max(1, hi - lo);
+        for (int i = 0; i < array.length; i++) {
+            add(i, array[i]);
+        }
+
+        front = new Frame(this.width, this.height);
+        System.arraycopy(pixels, 0, front.pixels, 0, pixels.length);
+        middle = new AtomicReference<>(new Frame(this.width, this.height));
+        back = new Frame(this.width, this.height);
+    }
+
+    /**
+     * The newest published frame. Must only be called from one thread, the
+     * EDT; the frame stays unchanged until the next call.
+     */
+    public Frame frame() {
+        if (middle.get().sequence > front.sequence) {
+            front = middle.getAndSet(front);
+        }
+        return front;
+    }
+
+    /** Recolors every plotted pixel to mark the sort as finished, and publishes the last frame. */
+    public void finish() {
+        for (int p = 0; p < pixels.length; p++) {
+            if (counts[p] > 0) pixels[p] = DONE;
+        }
+        publish(true);
+    }
+
+    private void publish(boolean done) {
+        Frame frame = back;
+        System.arraycopy(pixels, 0, frame.pixels, 0, pixels.length);
+        frame.sequence = ++published;
+        frame.steps = totalSteps;
+        frame.done = done;
+        back = middle.getAndSet(frame);
+    }
+
+    @Override
+    public void compare(int i, int j) {
+        pace();
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        int vi = array[i], vj = array[j];
+        remove(i, vi);
+        remove(j, vj);
+        add(i, vj);
+        add(j, vi);
+        pace();
+    }
+
+    @Override
+    public void write(int index, int oldValue, int newValue) {
+        remove(index, oldValue);
+        add(index, newValue);
+        pace();
+    }
+
+    @Override
+    public void sorted(int boundary) {
+    }
+
+    private int pixel(int index, int value) {
+        int x = (int) ((long) index * width / array.length);
+        int y = height - 1 - (int) ((value - min) * (height - 1) / range);
+        return y * width + x;
+    }
+
+    private void add(int index, int value) {
+        int p = pixel(index, value);
+        if (counts[p]++ == 0) pixels[p] = DOT;
+    }
+
+    private void remove(int index, int value) {
+        int p = pixel(index, value);
+        if (--counts[p] == 0) pixels[p] = BACKGROUND;
+    }
+
+    private void pace() {
+        totalSteps++;
+        if (stepsPerFrame > 0) {
+            if (++steps < stepsPerFrame) return;
+            steps = 0;
+            publish(false);
+            LockSupport.parkNanos(frameNanos);
+            if (Thread.interrupted()) {
+                throw new CancellationException();
+            }
+        } else if (++steps >= UNPACED_CHECK) {
+            steps = 0;
+            long now = System.nanoTime();
+            if (now - nextFrameNanos >= 0) {
+                nextFrameNanos = now + frameNanos;
+                publish(false);
+            }
+        }
+    }
+}
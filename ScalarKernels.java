@@ -0,0 +1,85 @@
+/**
+ * Plain Java {@link SortKernels}, the fallback when the vector module is
+ * missing. Both loops are written without data-dependent branches: partition
+ * writes every element to both output regions and advances only one cursor,
+ * and leaves are sorted by min/max sorting networks.
+ */
+final class ScalarKernels implements SortKernels {
+    /** Optimal 19-comparator network for 8 inputs, as (i, j) pairs with i < j. */
+    private static final byte[] NETWORK_8 = {
+            0, 2, 1, 3, 4, 6, 5, 7,
+            0, 4, 1, 5, 2, 6, 3, 7,
+            0, 1, 2, 3, 4, 5, 6, 7,
+            2, 4, 3, 5,
+            1, 4, 3, 6,
+            1, 2, 3, 4, 5, 6,
+    };
+
+    /** Green's 60-comparator network for 16 inputs, as (i, j) pairs with i < j. */
+    private static final byte[] NETWORK_16 = {
+            0, 13, 1, 12, 2, 15, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10,
+            0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 8, 14, 10, 15, 11, 12,
+            0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 14, 15,
+            0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14, 13, 15,
+            1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14,
+            1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 11, 14,
+            2, 4, 3, 6, 9, 12, 11, 13,
+            3, 5, 6, 8, 7, 9, 10, 12,
+            3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+            6, 7, 8, 9,
+    };
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int partition(int[] array, int from, int to, int pivot, int[] scratch) {
+        int n = to - from;
+        int less = 0, more = n;
+        for (int i = from; i < to; i++) {
+            int v = array[i];
+            int isLess = v < pivot ? 1 : 0;
+            scratch[less] = v;
+            scratch[more] = v;
+            less += isLess;
+            more += 1 - isLess;
+        }
+        System.arraycopy(scratch, 0, array, from, less);
+        System.arraycopy(scratch, n, array, from + less, more - n);
+        return less;
+    }
+
+    @Override
+    public void sortLeaf(int[] array, int from, int to) {
+        sortNetwork(array, from, to - from);
+    }
+
+    /**
+     * Sorts up to 16 elements with a sorting network. Smaller sizes behave as
+     * if padded with Integer.MAX_VALUE: every comparator that touches a
+     * padding slot would leave it unchanged, so those are simply skipped.
+     */
+    static void sortNetwork(int[] array, int from, int size) {
+        byte[] network = size <= 8 ? NETWORK_8 : NETWORK_16;
+        for (int c = 0; c < network.length; c += 2) {
+            if (network[c + 1] >= size) continue;
+            int i = from + network[c], j = from + network[c + 1];
+            int x = array[i], y = array[j];
+            array[i] = Math.min(x, y);
+            array[j] = Math.max(x, y);
+        }
+    }
+
+    /** Same network, reporting each comparator so it can be replayed. */
+    static void sortNetwork(int[] array, int from, int size, SortObserver o) {
+        byte[] network = size <= 8 ? NETWORK_8 : NETWORK_16;
+        for (int c = 0; c < network.length; c += 2) {
+            if (network[c + 1] >= size) continue;
+            int i = from + network[c], j = from + network[c + 1];
+            o.compare(i, j);
+            if (array[i] > array[j]) Sorts.swap(array, i, j, o);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * An algorithm that can be shown in a panel, benchmarked and used by the CLI.
+ *
+ * Implementations are found with {@link java.util.ServiceLoader}: list the
+ * class name in META-INF/services/SortAlgorithm and put it on the classpath.
+ * They need a public no-argument constructor and must report every compare,
+ * swap and write to the observer, since replays are rebuilt from those events.
+ */
+public interface SortAlgorithm {
+
+    /** Display name, also used as the panel title and the --algorithm value. */
+    String name();
+
+    void sort(int[] array, SortObserver o);
+
+    default void sort(int[] array) {
+        sort(array, SortObserver.NONE);
+    }
+
+    /** Source shown in the code viewer. */
+    default String code() {
+        return "Code not available";
+    }
+}
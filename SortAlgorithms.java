@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of every {@link SortAlgorithm} on the classpath, in the order the
+ * service files list them. Used by the panels, the benchmark and the CLI, so
+ * an algorithm registered once shows up everywhere.
+ */
+public final class SortAlgorithms {
+    private static final Map<String, SortAlgorithm> REGISTRY = load();
+
+    private SortAlgorithms() {
+    }
+
+    private static Map<String, SortAlgorithm> load() {
+        Map<String, SortAlgorithm> registry = new LinkedHashMap<>();
+        for (SortAlgorithm algorithm : ServiceLoader.load(SortAlgorithm.class)) {
+            registry.putIfAbsent(algorithm.name(), algorithm);
+        }
+        // Running from loose class files without META-INF on the classpath finds nothing.
+        for (SortAlgorithm algorithm : BuiltinAlgorithms.defaults()) {
+            registry.putIfAbsent(algorithm.name(), algorithm);
+        }
+        return registry;
+    }
+
+    public static List<SortAlgorithm> all() {
+        return Collections.unmodifiableList(new ArrayList<>(REGISTRY.values()));
+    }
+
+    /** Returns the algorithm with this display name, or null if none is registered. */
+    public static SortAlgorithm get(String name) {
+        return REGISTRY.get(name);
+    }
+
+    public static List<String> names() {
+        return new ArrayList<>(REGISTRY.keySet());
+    }
+}
@@ -0,0 +1,330 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Headless benchmark for every registered {@link SortAlgorithm}, with
+ * Arrays.sort and Arrays.parallelSort as baselines.
+ *
+ * Every (algorithm, shape, size) cell is warmed up first and then measured
+ * over several timed iterations. Each operation copies the prepared input
+ * into a work array and sorts it; the cost of the copy alone is measured
+ * separately and subtracted, so the reported ns/op is the sort only.
+ * Allocation is read from the per-thread allocation counter and GC counts
+ * from the collector MXBeans. The allocation counter only sees the calling
+ * thread, so B/op for the parallel sorts leaves out their worker threads.
+ *
+ * Usage: java SortBenchmark [--sizes 10,1000,...] [--shapes uniform,sorted,zipf,...]
+ *        [--algorithms "Merge Sort,Heap Sort"] [--warmup 3] [--iterations 5]
+ *        [--iteration-ms 200] [--budget-ms 2000] [--seed 42]
+ *
+ * With --crossover [--ranges 256,65536,...] it instead times the given
+ * algorithms (by default the comparison sorts against the radix sorts) on
+ * uniform values in [0, range) and prints one row per size and range with
+ * the fastest algorithm, which shows where the non-comparison sorts pay off.
+ *
+ * With --heaps it compares the heap sorts on uniform input, by default up to
+ * 32M elements (128 MB, past any L3 cache): ns/op, ns per element per level
+ * (n log2 n), comparisons per n log2 n, and the speedup over Heap Sort. Time
+ * per level grows once the heap stops fitting in a cache level, so that
+ * column stands in for the cache misses, which the JVM cannot count.
+ */
+public class SortBenchmark {
+
+    static class Result {
+        final String algorithm;
+        final InputGenerator.Distribution shape;
+        final int size;
+        final double nsPerOp;
+        final double bytesPerOp;
+        final double mbPerSec;
+        final long gcCount;
+        final String note;
+
+        Result(String algorithm, InputGenerator.Distribution shape, int size, double nsPerOp, double bytesPerOp,
+               double mbPerSec, long gcCount, String note) {
+            this.algorithm = algorithm;
+            this.shape = shape;
+            this.size = size;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.mbPerSec = mbPerSec;
+            this.gcCount = gcCount;
+            this.note = note;
+        }
+    }
+
+    private static final int[] DEFAULT_SIZES = {10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int[] DEFAULT_RANGES = {16, 256, 65_536, 16_777_216, Integer.MAX_VALUE};
+    private static final int[] HEAP_SIZES = {10_000, 100_000, 1_000_000, 4_000_000, 16_000_000, 32_000_000};
+    private static final List<String> HEAP_ALGORITHMS = Arrays.asList(
+            "Heap Sort", "Bottom-Up Heap Sort", "4-ary Heap Sort", "8-ary Heap Sort");
+    private static final List<String> CROSSOVER_ALGORITHMS = Arrays.asList(
+            "Quick Sort", "Merge Sort", "Intro Sort", "Counting Sort",
+            "LSD Radix Sort (8-bit)", "LSD Radix Sort (11-bit)", "LSD Radix Sort (16-bit)", "American Flag Sort");
+
+    private final Map<String, Consumer<int[]>> algorithms = new LinkedHashMap<>();
+    private int warmup = 3;
+    private int iterations = 5;
+    private long iterationNanos = 200_000_000L;
+    private long budgetNanos = 2_000_000_000L;
+    private long seed = 42;
+
+    public SortBenchmark() {
+        for (SortAlgorithm algorithm : SortAlgorithms.all()) {
+            algorithms.put(algorithm.name(), algorithm::sort);
+        }
+        // Same algorithm on the scalar kernels, to compare against the vector backend.
+        ScalarKernels scalar = new ScalarKernels();
+        algorithms.put("Vector Quick Sort (scalar)", a -> VectorSort.sort(a, SortObserver.NONE, scalar));
+        algorithms.put("Arrays.sort", Arrays::sort);
+        algorithms.put("Arrays.parallelSort", Arrays::parallelSort);
+    }
+
+    public static void main(String[] args) {
+        SortBenchmark benchmark = new SortBenchmark();
+        int[] sizes = DEFAULT_SIZES;
+        List<InputGenerator.Distribution> shapes = new ArrayList<>(Arrays.asList(InputGenerator.Distribution.values()));
+        List<String> names = new ArrayList<>(benchmark.algorithms.keySet());
+        int[] ranges = DEFAULT_RANGES;
+        boolean crossover = false;
+        boolean heaps = false;
+        boolean namesGiven = false;
+        boolean sizesGiven = false;
+        boolean budgetGiven = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    sizesGiven = true;
+                    i++;
+                    break;
+                case "--shapes":
+                    shapes.clear();
+                    for (String s : value.split(",")) shapes.add(InputGenerator.Distribution.parse(s));
+                    i++;
+                    break;
+                case "--algorithms":
+                    names.clear();
+                    for (String s : value.split(",")) names.add(s.trim());
+                    namesGiven = true;
+                    i++;
+                    break;
+                case "--crossover": crossover = true; break;
+                case "--heaps": heaps = true; break;
+                case "--ranges":
+                    ranges = Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    i++;
+                    break;
+                case "--warmup": benchmark.warmup = Integer.parseInt(value); i++; break;
+                case "--iterations": benchmark.iterations = Integer.parseInt(value); i++; break;
+                case "--iteration-ms": benchmark.iterationNanos = Long.parseLong(value) * 1_000_000L; i++; break;
+                case "--budget-ms":
+                    benchmark.budgetNanos = Long.parseLong(value) * 1_000_000L;
+                    budgetGiven = true;
+                    i++;
+                    break;
+                case "--seed": benchmark.seed = Long.parseLong(value); i++; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (crossover) {
+            benchmark.crossover(namesGiven ? names : CROSSOVER_ALGORITHMS, sizes, ranges);
+            return;
+        }
+        if (heaps) {
+            // A single heap sort of the largest default size alone takes seconds.
+            if (!budgetGiven) benchmark.budgetNanos = 60_000_000_000L;
+            benchmark.heaps(namesGiven ? names : HEAP_ALGORITHMS, sizesGiven ? sizes : HEAP_SIZES);
+            return;
+        }
+
+        System.out.println("# VectorSort kernels: " + VectorSort.backend());
+        System.out.printf("%-20s %-13s %11s %16s %14s %10s %6s  %s%n",
+                "Algorithm", "Shape", "Size", "ns/op", "B/op", "MB/s", "GCs", "Note");
+        for (String name : names) {
+            Consumer<int[]> sorter = benchmark.algorithms.get(name);
+            if (sorter == null) {
+                System.err.println("Unknown algorithm: " + name);
+                continue;
+            }
+            for (InputGenerator.Distribution shape : shapes) {
+                for (int size : sizes) {
+                    Result r = benchmark.run(name, sorter, shape, size);
+                    print(r);
+                    if (r.note.startsWith("over budget") || r.note.startsWith("failed")) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void print(Result r) {
+        System.out.printf("%-20s %-13s %11d %16.1f %14.1f %10.1f %6d  %s%n",
+                r.algorithm, r.shape.label(), r.size, r.nsPerOp, r.bytesPerOp,
+                r.mbPerSec, r.gcCount, r.note);
+    }
+
+    /**
+     * Times every algorithm on uniform values in [0, range) for each size and
+     * range. Cells that fail or exceed the budget print as "-".
+     */
+    void crossover(List<String> names, int[] sizes, int[] ranges) {
+        StringBuilder header = new StringBuilder(String.format("%11s %11s", "Size", "Range"));
+        for (String name : names) header.append(String.format(" %" + columnWidth(name) + "s", name));
+        System.out.println(header.append("  Fastest"));
+
+        for (int range : ranges) {
+            for (int size : sizes) {
+                int[] source = new InputGenerator(InputGenerator.Distribution.UNIFORM).seed(seed).bound(range).generate(size);
+
+                StringBuilder row = new StringBuilder(String.format("%11d %11d", size, range));
+                String fastest = "-";
+                double best = Double.MAX_VALUE;
+                for (String name : names) {
+                    Consumer<int[]> sorter = algorithms.get(name);
+                    Result r = sorter == null ? null : run(name, sorter, InputGenerator.Distribution.UNIFORM, size, source);
+                    if (r == null || !r.note.isEmpty()) {
+                        row.append(String.format(" %" + columnWidth(name) + "s", "-"));
+                        continue;
+                    }
+                    row.append(String.format(" %" + columnWidth(name) + ".1f", r.nsPerOp));
+                    if (r.nsPerOp < best) {
+                        best = r.nsPerOp;
+                        fastest = name;
+                    }
+                }
+                System.out.println(row.append("  ").append(fastest));
+            }
+        }
+    }
+
+    /**
+     * Times the heap sorts on uniform input and counts their comparisons in
+     * a separate run. The first algorithm is the baseline for the speedup.
+     */
+    void heaps(List<String> names, int[] sizes) {
+        System.out.printf("%-20s %11s %14s %14s %14s %9s%n",
+                "Algorithm", "Size", "ns/op", "ns/(n lg n)", "cmp/(n lg n)", "Speedup");
+        for (int size : sizes) {
+            int[] source = InputGenerator.generate(InputGenerator.Distribution.UNIFORM, size, seed);
+            double nLogN = size * (Math.log(size) / Math.log(2));
+            double baseline = 0;
+            for (String name : names) {
+                SortAlgorithm algorithm = SortAlgorithms.get(name);
+                if (algorithm == null) {
+                    System.err.println("Unknown algorithm: " + name);
+                    continue;
+                }
+                Result r = run(name, algorithm::sort, InputGenerator.Distribution.UNIFORM, size, source);
+                if (!r.note.isEmpty()) {
+                    System.out.printf("%-20s %11d %14s  %s%n", name, size, "-", r.note);
+                    continue;
+                }
+                SortMetrics counts = new SortMetrics(size);
+                algorithm.sort(source.clone(), counts);
+                if (baseline == 0) baseline = r.nsPerOp;
+                System.out.printf("%-20s %11d %14.1f %14.3f %14.3f %8.2fx%n", name, size, r.nsPerOp,
+                        r.nsPerOp / nLogN, counts.comparisons() / nLogN, baseline / r.nsPerOp);
+            }
+        }
+    }
+
+    private static int columnWidth(String name) {
+        return Math.max(12, name.length());
+    }
+
+    Result run(String name, Consumer<int[]> sorter, InputGenerator.Distribution shape, int size) {
+        return run(name, sorter, shape, size, InputGenerator.generate(shape, size, seed));
+    }
+
+    Result run(String name, Consumer<int[]> sorter, InputGenerator.Distribution shape, int size, int[] source) {
+        int[] work = new int[size];
+
+        try {
+            // A single probe run decides whether this cell is affordable at all.
+            System.arraycopy(source, 0, work, 0, size);
+            long probe = System.nanoTime();
+            sorter.accept(work);
+            probe = System.nanoTime() - probe;
+            if (!Sorts.isSorted(work)) {
+                return new Result(name, shape, size, 0, 0, 0, 0, "failed: output not sorted");
+            }
+            if (probe > budgetNanos) {
+                return new Result(name, shape, size, probe, 0, 0, 0,
+                        "over budget, single run; larger sizes skipped");
+            }
+
+            Consumer<int[]> copyOnly = a -> { };
+            for (int i = 0; i < warmup; i++) {
+                measure(sorter, source, work);
+                measure(copyOnly, source, work);
+            }
+
+            double[] sortNs = new double[iterations];
+            double[] copyNs = new double[iterations];
+            long bytes = 0, ops = 0, gcs = 0, elapsed = 0;
+            for (int i = 0; i < iterations; i++) {
+                long gcBefore = gcCount();
+                long allocBefore = allocatedBytes();
+                long start = System.nanoTime();
+                long n = measure(sorter, source, work);
+                long took = System.nanoTime() - start;
+                bytes += allocatedBytes() - allocBefore;
+                gcs += gcCount() - gcBefore;
+                ops += n;
+                elapsed += took;
+                sortNs[i] = (double) took / n;
+                long copyStart = System.nanoTime();
+                long m = measure(copyOnly, source, work);
+                copyNs[i] = (double) (System.nanoTime() - copyStart) / m;
+            }
+            Arrays.sort(sortNs);
+            Arrays.sort(copyNs);
+            double nsPerOp = Math.max(0, sortNs[iterations / 2] - copyNs[iterations / 2]);
+            double bytesPerOp = ops == 0 ? 0 : (double) bytes / ops;
+            double mbPerSec = elapsed == 0 ? 0 : bytes / (elapsed / 1e9) / (1024 * 1024);
+            return new Result(name, shape, size, nsPerOp, bytesPerOp, mbPerSec, gcs, "");
+        } catch (StackOverflowError e) {
+            return new Result(name, shape, size, 0, 0, 0, 0, "failed: StackOverflowError");
+        } catch (OutOfMemoryError e) {
+            return new Result(name, shape, size, 0, 0, 0, 0, "failed: OutOfMemoryError");
+        }
+    }
+
+    /** Runs copy+sort operations for at least one iteration length and returns how many ran. */
+    private long measure(Consumer<int[]> sorter, int[] source, int[] work) {
+        long deadline = System.nanoTime() + iterationNanos;
+        long ops = 0;
+        do {
+            System.arraycopy(source, 0, work, 0, source.length);
+            sorter.accept(work);
+            ops++;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+}
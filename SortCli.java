@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Headless entry point for sorting arrays that are far too large for the UI.
+ * {@link SortingVisualizer#main} hands over to it whenever arguments are given.
+ *
+ * Usage:
+ *   java SortingVisualizer sort --input FILE [--format bin|text] [--order big|little]
+ *                               [--algorithm "Intro Sort"] [--output FILE] [--verify]
+ *   java SortingVisualizer sort --external --input FILE --output FILE [--memory 64m]
+ *                               [--run-size N] [--fan-in K] [--temp-dir DIR] [--verify]
+ *   java SortingVisualizer generate --output FILE --count N [--distribution uniform|gaussian|zipf|...]
+ *                                   [--seed S] [--bound B] [--swaps K] [--unique U] [--exponent E]
+ *                                   [--order big|little]
+ *   java SortingVisualizer batch [--sizes 1000,100000] [--shapes uniform,sorted,...] [--seeds 1,2,3]
+ *                                [--algorithms "Intro Sort,Merge Sort"] [--warmup 3] [--repetitions 10]
+ *                                [--workers N] [--budget-ms 5000] [--output report.csv|.json|.html]
+ *   java SortingVisualizer record --output FILE.trace [--algorithm "Heap Sort"] [--input FILE | --count N
+ *                                 [--distribution NAME] [--seed S]]
+ *   java SortingVisualizer inspect --input FILE.trace
+ *
+ * Files ending in .bin or .dat are read as raw binary ints unless --format says
+ * otherwise; anything else is parsed as text. External sorts read and write
+ * binary files only and never hold more than one run in memory.
+ */
+public final class SortCli {
+    private SortCli() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        try {
+            Map<String, String> options = parseOptions(args);
+            switch (args[0]) {
+                case "sort": sort(options); break;
+                case "generate": generate(options); break;
+                case "batch": batch(options); break;
+                case "record": record(options); break;
+                case "inspect": inspect(options); break;
+                default: usage();
+            }
+        } catch (IllegalArgumentException | IOException | InterruptedException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void sort(Map<String, String> options) throws IOException {
+        Path input = Paths.get(require(options, "input"));
+        ByteOrder order = byteOrder(options);
+        String algorithm = options.getOrDefault("algorithm", "Intro Sort");
+        SortAlgorithm registered = SortAlgorithms.get(algorithm);
+        if (registered == null) {
+            throw new IllegalArgumentException("Unknown algorithm '" + algorithm + "', expected one of " + SortAlgorithms.names());
+        }
+        Consumer<int[]> sorter = registered::sort;
+
+        if (options.containsKey("external")) {
+            externalSort(input, options, order, algorithm, sorter);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] array = isBinary(input, options) ? ArrayLoader.readBinary(input, order) : ArrayLoader.readText(input);
+        report("Loaded " + array.length + " ints", start);
+
+        long checksum = options.containsKey("verify") ? checksum(array) : 0;
+        start = System.nanoTime();
+        sorter.accept(array);
+        report("Sorted with " + algorithm, start);
+
+        if (options.containsKey("verify")) {
+            start = System.nanoTime();
+            if (!Sorts.isSorted(array)) {
+                throw new IllegalArgumentException("Verification failed: output is not sorted");
+            }
+            if (checksum(array) != checksum) {
+                throw new IllegalArgumentException("Verification failed: output is not a permutation of the input");
+            }
+            report("Verified", start);
+        }
+
+        if (options.containsKey("output")) {
+            start = System.nanoTime();
+            ArrayLoader.writeBinary(Paths.get(options.get("output")), array, order);
+            report("Wrote " + options.get("output"), start);
+        }
+    }
+
+    private static void externalSort(Path input, Map<String, String> options, ByteOrder order,
+                                     String algorithm, Consumer<int[]> sorter) throws IOException {
+        if (!isBinary(input, options)) {
+            throw new IllegalArgumentException("External sorts read binary ints only; use a .bin or .dat file or --format bin");
+        }
+        Path output = Paths.get(require(options, "output"));
+        ExternalSort external = new ExternalSort()
+                .memoryBudget(parseSize(options.getOrDefault("memory", "64m")))
+                .runSize(Integer.parseInt(options.getOrDefault("run-size", "0")))
+                .fanIn(Integer.parseInt(options.getOrDefault("fan-in", "128")))
+                .algorithm(sorter)
+                .order(order);
+        if (options.containsKey("temp-dir")) {
+            external.tempDir(Paths.get(options.get("temp-dir")));
+        }
+
+        long start = System.nanoTime();
+        external.sort(input, output);
+        report("External sort with " + algorithm, start);
+
+        if (options.containsKey("verify")) {
+            start = System.nanoTime();
+            try (ExternalSort.IntReader in = new ExternalSort.IntReader(input, 1 << 20, order);
+                 ExternalSort.IntReader out = new ExternalSort.IntReader(output, 1 << 20, order)) {
+                long inputSum = 0, outputSum = 0, count = 0;
+                int previous = Integer.MIN_VALUE;
+                while (in.hasNext()) inputSum += mix(in.next());
+                while (out.hasNext()) {
+                    int v = out.next();
+                    if (v < previous) {
+                        throw new IllegalArgumentException("Verification failed: output is not sorted at index " + count);
+                    }
+                    previous = v;
+                    outputSum += mix(v);
+                    count++;
+                }
+                if (inputSum != outputSum) {
+                    throw new IllegalArgumentException("Verification failed: output is not a permutation of the input");
+                }
+            }
+            report("Verified", start);
+        }
+    }
+
+    /** Parses sizes such as 512k, 64m or 2g into bytes. */
+    private static long parseSize(String size) {
+        String s = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        if (s.endsWith("k")) unit = 1L << 10;
+        else if (s.endsWith("m")) unit = 1L << 20;
+        else if (s.endsWith("g")) unit = 1L << 30;
+        if (unit != 1) s = s.substring(0, s.length() - 1);
+        return Long.parseLong(s) * unit;
+    }
+
+    private static void generate(Map<String, String> options) throws IOException {
+        Path output = Paths.get(require(options, "output"));
+        int count = Integer.parseInt(require(options, "count"));
+        InputGenerator.Distribution distribution =
+                InputGenerator.Distribution.parse(options.getOrDefault("distribution", "uniform"));
+        InputGenerator generator = new InputGenerator(distribution)
+                .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .bound(Integer.parseInt(options.getOrDefault("bound", "0")));
+        if (options.containsKey("swaps")) generator.swaps(Integer.parseInt(options.get("swaps")));
+        if (options.containsKey("unique")) generator.unique(Integer.parseInt(options.get("unique")));
+        if (options.containsKey("exponent")) generator.zipfExponent(Double.parseDouble(options.get("exponent")));
+
+        long start = System.nanoTime();
+        int[] array = generator.generate(count);
+        report("Generated " + count + " " + distribution.label() + " ints", start);
+        start = System.nanoTime();
+        ArrayLoader.writeBinary(output, array, byteOrder(options));
+        report("Wrote " + output, start);
+    }
+
+    private static void batch(Map<String, String> options) throws IOException, InterruptedException {
+        BatchRunner runner = new BatchRunner()
+                .warmup(Integer.parseInt(options.getOrDefault("warmup", "3")))
+                .repetitions(Integer.parseInt(options.getOrDefault("repetitions", "10")))
+                .budgetMillis(Long.parseLong(options.getOrDefault("budget-ms", "5000")));
+        if (options.containsKey("sizes")) {
+            runner.sizes(Arrays.stream(split(options.get("sizes"))).mapToInt(Integer::parseInt).toArray());
+        }
+        if (options.containsKey("shapes")) {
+            List<InputGenerator.Distribution> shapes = new ArrayList<>();
+            for (String s : split(options.get("shapes"))) {
+                shapes.add(InputGenerator.Distribution.parse(s));
+            }
+            runner.shapes(shapes);
+        }
+        if (options.containsKey("seeds")) {
+            runner.seeds(Arrays.stream(split(options.get("seeds"))).mapToLong(Long::parseLong).toArray());
+        }
+        if (options.containsKey("algorithms")) {
+            runner.algorithms(Arrays.asList(split(options.get("algorithms"))));
+        }
+        if (options.containsKey("workers")) {
+            runner.workers(Integer.parseInt(options.get("workers")));
+        }
+
+        long start = System.nanoTime();
+        List<BatchRunner.Cell> cells = runner.run(cell -> System.err.printf(Locale.ROOT,
+                "%-26s %-11s %11d seed %-6d median %12.1f us  p95 %12.1f us %s%n",
+                cell.algorithm, cell.shape.label(), cell.size, cell.seed,
+                cell.median / 1e3, cell.p95 / 1e3, cell.note));
+        report("Batch of " + cells.size() + " cells", start);
+
+        if (options.containsKey("output")) {
+            Path output = Paths.get(options.get("output"));
+            BatchRunner.write(cells, output);
+            report("Wrote " + output, start);
+        } else {
+            System.out.print(BatchRunner.toCsv(cells));
+        }
+    }
+
+    /** Streams every operation of one sort to a trace file that the UI can load and replay. */
+    private static void record(Map<String, String> options) throws IOException {
+        Path output = Paths.get(require(options, "output"));
+        String algorithm = options.getOrDefault("algorithm", "Heap Sort");
+        SortAlgorithm registered = SortAlgorithms.get(algorithm);
+        if (registered == null) {
+            throw new IllegalArgumentException("Unknown algorithm '" + algorithm + "', expected one of " + SortAlgorithms.names());
+        }
+        int[] array;
+        if (options.containsKey("input")) {
+            Path input = Paths.get(options.get("input"));
+            array = isBinary(input, options) ? ArrayLoader.readBinary(input, byteOrder(options)) : ArrayLoader.readText(input);
+        } else {
+            array = InputGenerator.generate(
+                    InputGenerator.Distribution.parse(options.getOrDefault("distribution", "uniform")),
+                    Integer.parseInt(require(options, "count")),
+                    Long.parseLong(options.getOrDefault("seed", "42")));
+        }
+
+        long start = System.nanoTime();
+        long steps = TraceFile.record(output, registered, array);
+        report(String.format("Recorded %,d steps of %s", steps, algorithm), start);
+        System.out.printf("%,d bytes, %.2f bytes per step%n", output.toFile().length(),
+                (double) output.toFile().length() / Math.max(1, steps));
+    }
+
+    /** Replays a trace file without the UI, counting operations and checking that it ends sorted. */
+    private static void inspect(Map<String, String> options) throws IOException {
+        Path input = Paths.get(require(options, "input"));
+        long start = System.nanoTime();
+        try (TraceFile trace = TraceFile.open(input)) {
+            int[] array = trace.initialArray();
+            long[] counts = new long[4];
+            for (long s = 0, steps = trace.steps(); s < steps; s++) {
+                long event = trace.eventAt(s);
+                counts[SortTrace.op(event)]++;
+                SortTrace.apply(event, array);
+            }
+            report(String.format("Replayed %,d steps of %s", trace.steps(), trace.algorithm()), start);
+            System.out.printf("n %,d | cmp %,d | swp %,d | wr %,d | sorted markers %,d | ends sorted: %b%n",
+                    trace.length(), counts[SortTrace.COMPARE], counts[SortTrace.SWAP],
+                    counts[SortTrace.WRITE], counts[SortTrace.SORTED], Sorts.isSorted(array));
+        }
+    }
+
+    private static String[] split(String list) {
+        String[] parts = list.split(",");
+        for (int i = 0; i < parts.length; i++) parts[i] = parts[i].trim();
+        return parts;
+    }
+
+    /** Order-independent hash, so a sorted array matches its input only if no element was lost or changed. */
+    private static long checksum(int[] array) {
+        long sum = 0;
+        for (int v : array) {
+            sum += mix(v);
+        }
+        return sum;
+    }
+
+    private static long mix(int v) {
+        long z = v * 0x9E3779B97F4A7C15L;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean isBinary(Path input, Map<String, String> options) {
+        String format = options.get("format");
+        if (format != null) {
+            if (!format.equals("bin") && !format.equals("text")) {
+                throw new IllegalArgumentException("--format must be bin or text");
+            }
+            return format.equals("bin");
+        }
+        String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".bin") || name.endsWith(".dat");
+    }
+
+    private static ByteOrder byteOrder(Map<String, String> options) {
+        String order = options.getOrDefault("order", "big");
+        switch (order) {
+            case "big": return ByteOrder.BIG_ENDIAN;
+            case "little": return ByteOrder.LITTLE_ENDIAN;
+            default: throw new IllegalArgumentException("--order must be big or little");
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "");
+            }
+        }
+        return options;
+    }
+
+    private static String require(Map<String, String> options, String key) {
+        String value = options.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing --" + key);
+        }
+        return value;
+    }
+
+    private static void report(String what, long startNanos) {
+        System.out.printf("%-40s %10.1f ms%n", what, (System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    private static void usage() {
+        System.out.println("Usage:");
+        System.out.println("  java SortingVisualizer sort --input FILE [--format bin|text] [--order big|little]");
+        System.out.println("                              [--algorithm NAME] [--output FILE] [--verify]");
+        System.out.println("  java SortingVisualizer sort --external --input FILE --output FILE [--memory 64m]");
+        System.out.println("                              [--run-size N] [--fan-in K] [--temp-dir DIR] [--verify]");
+        System.out.println("  java SortingVisualizer generate --output FILE --count N [--distribution NAME] [--seed S]");
+        System.out.println("                                  [--bound B] [--swaps K] [--unique U] [--exponent E] [--order big|little]");
+        System.out.println("  java SortingVisualizer batch [--sizes N,...] [--shapes uniform,sorted,...] [--seeds S,...]");
+        System.out.println("                               [--algorithms NAME,...] [--warmup 3] [--repetitions 10]");
+        System.out.println("                               [--workers N] [--budget-ms 5000] [--output report.csv|.json|.html]");
+        System.out.println("  java SortingVisualizer record --output FILE.trace [--algorithm NAME]");
+        System.out.println("                                [--input FILE | --count N [--distribution NAME] [--seed S]]");
+        System.out.println("  java SortingVisualizer inspect --input FILE.trace");
+        System.out.println("Algorithms: " + SortAlgorithms.names());
+        System.out.println("Distributions: " + Arrays.toString(InputGenerator.Distribution.values()).toLowerCase(Locale.ROOT));
+    }
+}
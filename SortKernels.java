@@ -0,0 +1,20 @@
+/**
+ * The inner loops of {@link VectorSort}. {@link ScalarKernels} is always
+ * available; VectorKernels in incubator/ implements the same loops with
+ * jdk.incubator.vector and is used instead when it can be loaded.
+ */
+interface SortKernels {
+
+    /** Short description for benchmark output. */
+    String name();
+
+    /**
+     * Moves the elements of [from, to) that are less than {@code pivot} to the
+     * front, keeps the rest after them, and returns how many are less.
+     * {@code scratch} holds at least {@code 2 * (to - from + VectorSort.LEAF_SIZE)} ints.
+     */
+    int partition(int[] array, int from, int to, int pivot, int[] scratch);
+
+    /** Sorts [from, to), which holds at most {@link VectorSort#LEAF_SIZE} elements. */
+    void sortLeaf(int[] array, int from, int to);
+}
@@ -0,0 +1,101 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation counters for one sort run.
+ *
+ * The counters are striped ({@link LongAdder}), so fork/join workers can
+ * report into the same instance without contending on a single cache line.
+ * They can be read while the run is still going, which is how the panels
+ * show live numbers. The wall-clock time comes from the separate untraced
+ * run and is set with {@link #setNanos(long)}.
+ */
+public class SortMetrics implements SortObserver {
+    public static final String CSV_HEADER =
+            "algorithm,n,nanos,comparisons,swaps,writes,aux_bytes,max_depth,comparisons_per_nlogn";
+
+    private final int elements;
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder swaps = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder auxBytes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private volatile long nanos;
+
+    public SortMetrics(int elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public void compare(int i, int j) {
+        comparisons.increment();
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        swaps.increment();
+    }
+
+    @Override
+    public void write(int index, int oldValue, int newValue) {
+        writes.increment();
+    }
+
+    @Override
+    public void sorted(int boundary) {
+    }
+
+    @Override
+    public void depth(int depth) {
+        maxDepth.accumulate(depth);
+    }
+
+    @Override
+    public void allocate(long bytes) {
+        auxBytes.add(bytes);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public int elements() { return elements; }
+    public long nanos() { return nanos; }
+    public long comparisons() { return comparisons.sum(); }
+    public long swaps() { return swaps.sum(); }
+    public long writes() { return writes.sum(); }
+    public long auxBytes() { return auxBytes.sum(); }
+    public long maxDepth() { return maxDepth.get(); }
+
+    /** Comparisons relative to n log2 n, the lower bound for comparison sorts. */
+    public double comparisonsPerNLogN() {
+        if (elements < 2) return 0;
+        return comparisons() / (elements * (Math.log(elements) / Math.log(2)));
+    }
+
+    /** One-line summary for the panels. */
+    public String summary() {
+        return String.format(Locale.ROOT, "cmp %,d | swp %,d | wr %,d | aux %,d B | depth %d",
+                comparisons(), swaps(), writes(), auxBytes(), maxDepth());
+    }
+
+    public String toCsvRow(String algorithm) {
+        return String.format(Locale.ROOT, "\"%s\",%d,%d,%d,%d,%d,%d,%d,%.4f",
+                algorithm.replace("\"", "\"\""), elements, nanos, comparisons(), swaps(), writes(),
+                auxBytes(), maxDepth(), comparisonsPerNLogN());
+    }
+
+    public String toJson(String algorithm) {
+        return String.format(Locale.ROOT,
+                "{\"algorithm\":\"%s\",\"n\":%d,\"nanos\":%d,\"comparisons\":%d,\"swaps\":%d,"
+                        + "\"writes\":%d,\"auxBytes\":%d,\"maxDepth\":%d,\"comparisonsPerNLogN\":%.4f}",
+                algorithm.replace("\\", "\\\\").replace("\"", "\\\""), elements, nanos, comparisons(), swaps(),
+                writes(), auxBytes(), maxDepth(), comparisonsPerNLogN());
+    }
+}
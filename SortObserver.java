@@ -0,0 +1,64 @@
+/**
+ * Receives the operations an algorithm in {@link Sorts} performs on its array.
+ * Implementations must not touch the array themselves; they only record or
+ * count what happened.
+ */
+public interface SortObserver {
+
+    /** Observer that ignores every event, used for plain timed runs. */
+    SortObserver NONE = new SortObserver() {
+        @Override public void compare(int i, int j) { }
+        @Override public void swap(int i, int j) { }
+        @Override public void write(int index, int oldValue, int newValue) { }
+        @Override public void sorted(int boundary) { }
+    };
+
+    void compare(int i, int j);
+
+    void swap(int i, int j);
+
+    void write(int index, int oldValue, int newValue);
+
+    /** Marks every index at or above {@code boundary} as being in its final place. */
+    void sorted(int boundary);
+
+    /** Reports entry into a recursive call at {@code depth}, where the top-level call is 0. */
+    default void depth(int depth) {
+    }
+
+    /** Reports an auxiliary allocation of {@code bytes} made by the algorithm. */
+    default void allocate(long bytes) {
+    }
+
+    /**
+     * Whether events may be reported from several threads at once. Parallel
+     * algorithms only fork when their observer says so.
+     */
+    default boolean isThreadSafe() {
+        return this == NONE;
+    }
+
+    /**
+     * Whether the observer does nothing with the events it is sent, so an
+     * algorithm may take a fast path that does not report them all.
+     */
+    default boolean ignoresEvents() {
+        return this == NONE;
+    }
+
+    /** Forwards every event to both observers. */
+    static SortObserver both(SortObserver first, SortObserver second) {
+        return new SortObserver() {
+            @Override public void compare(int i, int j) { first.compare(i, j); second.compare(i, j); }
+            @Override public void swap(int i, int j) { first.swap(i, j); second.swap(i, j); }
+            @Override public void write(int index, int oldValue, int newValue) {
+                first.write(index, oldValue, newValue);
+                second.write(index, oldValue, newValue);
+            }
+            @Override public void sorted(int boundary) { first.sorted(boundary); second.sorted(boundary); }
+            @Override public void depth(int depth) { first.depth(depth); second.depth(depth); }
+            @Override public void allocate(long bytes) { first.allocate(bytes); second.allocate(bytes); }
+            @Override public boolean isThreadSafe() { return first.isThreadSafe() && second.isThreadSafe(); }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Compact record of the operations a sort performed, one long per event.
+ *
+ * Layout of an event: the top 2 bits hold the operation, the next 30 bits the
+ * first index and the low 32 bits the operand. For a compare or swap the
+ * operand is the second index. For a write it is {@code oldValue ^ newValue},
+ * so applying the same event twice restores the array, which is what lets the
+ * UI step backwards. For a sorted marker it is the previous boundary.
+ */
+public class SortTrace implements SortObserver, TraceSource {
+    public static final int COMPARE = 0;
+    public static final int SWAP = 1;
+    public static final int WRITE = 2;
+    public static final int SORTED = 3;
+
+    static final int MAX_INDEX = (1 << 30) - 1;
+
+    private final int[] initial;
+    private final int limit;
+    private long[] events = new long[64];
+    private int size;
+    private int sortedBoundary = -1;
+
+    /** Starts a trace for a sort of {@code array}; the array is copied as the replay start state. */
+    public SortTrace(int[] array) {
+        this(array, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Starts a trace that holds at most {@code limit} events. The event that
+     * would exceed it throws {@link LimitExceededException}, which stops the
+     * sort before the trace outgrows the heap.
+     */
+    public SortTrace(int[] array, int limit) {
+        if (array.length > MAX_INDEX) {
+            throw new IllegalArgumentException("Array too large to trace: " + array.length);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Event limit must be positive, was " + limit);
+        }
+        this.initial = array.clone();
+        this.limit = limit;
+    }
+
+    @Override
+    public void compare(int i, int j) {
+        add(COMPARE, i, j);
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        add(SWAP, i, j);
+    }
+
+    @Override
+    public void write(int index, int oldValue, int newValue) {
+        add(WRITE, index, oldValue ^ newValue);
+    }
+
+    @Override
+    public void sorted(int boundary) {
+        add(SORTED, boundary & MAX_INDEX, sortedBoundary);
+        sortedBoundary = boundary;
+    }
+
+    private void add(int op, int a, int b) {
+        if (size == events.length) {
+            if (size >= limit) {
+                throw new LimitExceededException(limit);
+            }
+            // Growth is rare enough to double as the cancellation point of a traced run.
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            events = Arrays.copyOf(events, (int) Math.min(limit, size * 2L));
+        }
+        events[size++] = ((long) op << 62) | ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int[] initialArray() {
+        return initial.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long event(int index) {
+        return events[index];
+    }
+
+    @Override
+    public long steps() {
+        return size;
+    }
+
+    @Override
+    public long eventAt(long step) {
+        return events[(int) step];
+    }
+
+    public static int op(long event) {
+        return (int) (event >>> 62);
+    }
+
+    /** First index of the event; for a sorted marker the new boundary, or -1. */
+    public static int a(long event) {
+        int a = (int) (event >>> 32) & MAX_INDEX;
+        return a == MAX_INDEX ? -1 : a;
+    }
+
+    public static int b(long event) {
+        return (int) event;
+    }
+
+    /** Thrown into the sort when a trace reaches its event limit. */
+    public static final class LimitExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(int limit) {
+            super("Trace exceeded " + limit + " events");
+        }
+    }
+
+    /** Applies {@code event} to {@code array}. Calling it again undoes it. */
+    public static void apply(long event, int[] array) {
+        int a = a(event);
+        switch (op(event)) {
+            case SWAP:
+                int temp = array[a];
+                array[a] = array[b(event)];
+                array[b(event)] = temp;
+                break;
+            case WRITE:
+                array[a] ^= b(event);
+                break;
+            default:
+                break;
+        }
+    }
+}
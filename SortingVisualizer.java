@@ -1,19 +1,65 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SortingVisualizer extends JFrame {
     private JTextField inputField;
-    private JButton startButton, randomButton;
+    private JButton startButton, randomButton, cancelButton;
     private JPanel mainPanel;
     private int[] originalArray;
+    private int[] generatedArray; // set while the input field still shows the last generated array
+    private JComboBox<InputGenerator.Distribution> distributionBox;
+    private JSpinner sizeSpinner;
+    private final SplittableRandom seeds = new SplittableRandom();
     private List<SortPanel> sortPanels;
     private JTextArea codeArea;
     private JLabel rankingLabel;
+    private JSlider speedSlider;
+    private JCheckBox incrementalBox;
+    private CompletableFuture<Void> currentRun;
+    
+    private static final int REPLAY_TICK_MS = frameIntervalMs();
+    private static final int MIN_BAR_WIDTH = 3;
+    private static final int MIN_LABEL_WIDTH = 16;
+    
+    private static final Color DONE = new Color(46, 204, 113);
+    private static final Color COMPARING = new Color(231, 76, 60);
+    private static final Color SORTED = new Color(52, 152, 219);
+    private static final Color UNSORTED = new Color(149, 165, 166);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 9);
+    
+    /** Runs the sorts off the EDT; bounded so repeated runs never pile up threads. */
+    private static final ExecutorService SORT_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("sort-worker-"));
+    
+    /** Paced live renders spend most of their time parked, so they get their own pool. */
+    private static final ExecutorService LIVE_EXECUTOR = Executors.newCachedThreadPool(daemonThreads("sort-live-"));
+    
+    /**
+     * Events a panel traces before giving up and drawing the run live into a
+     * raster instead; at 8 bytes an event this keeps a trace to 16 MB.
+     */
+    private static final int MAX_TRACED_EVENTS = 1 << 21;
+    
+    /** Generated arrays up to this length are also written into the input field. */
+    private static final int MAX_EDITABLE_VALUES = 1_000;
     
     public static void main(String[] args) {
+        if (args.length > 0) {
+            SortCli.main(args);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             SortingVisualizer visualizer = new SortingVisualizer();
             visualizer.setVisible(true);
@@ -30,6 +76,11 @@ public class SortingVisualizer extends JFrame {
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         topPanel.add(new JLabel("Enter Array (comma-separated):"));
         inputField = new JTextField("64,34,25,12,22,11,90,88,45,50,23,67", 30);
+        inputField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { generatedArray = null; }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { generatedArray = null; }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { generatedArray = null; }
+        });
         topPanel.add(inputField);
         
         startButton = new JButton("Start Sorting");
@@ -40,6 +91,30 @@ public class SortingVisualizer extends JFrame {
         randomButton.addActionListener(e -> generateRandomArray());
         topPanel.add(randomButton);
         
+        distributionBox = new JComboBox<>(InputGenerator.Distribution.values());
+        topPanel.add(distributionBox);
+        topPanel.add(new JLabel("n:"));
+        sizeSpinner = new JSpinner(new SpinnerNumberModel(12, 1, 10_000_000, 1));
+        topPanel.add(sizeSpinner);
+        
+        incrementalBox = new JCheckBox("Incremental");
+        incrementalBox.setToolTipText("Re-sort only the values changed since the last run");
+        topPanel.add(incrementalBox);
+        
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelSorting());
+        topPanel.add(cancelButton);
+        
+        JButton exportButton = new JButton("Export Metrics...");
+        exportButton.addActionListener(e -> exportMetrics());
+        topPanel.add(exportButton);
+        
+        topPanel.add(new JLabel("Steps/sec:"));
+        speedSlider = new JSlider(1, 500, 20);
+        speedSlider.setPreferredSize(new Dimension(120, speedSlider.getPreferredSize().height));
+        topPanel.add(speedSlider);
+        
         rankingLabel = new JLabel("Rankings will appear here after sorting");
         rankingLabel.setFont(new Font("Arial", Font.BOLD, 14));
         topPanel.add(rankingLabel);
@@ -47,17 +122,19 @@ public class SortingVisualizer extends JFrame {
         add(topPanel, BorderLayout.NORTH);
         
      
-        mainPanel = new JPanel(new GridLayout(2, 3, 10, 10));
+        mainPanel = new JPanel();
         sortPanels = new ArrayList<>();
         
-        String[] algorithms = {"Bubble Sort", "Selection Sort", "Insertion Sort", 
-                               "Merge Sort", "Quick Sort", "Heap Sort"};
-        
-        for (String algo : algorithms) {
-            SortPanel panel = new SortPanel(algo);
-            sortPanels.add(panel);
-            mainPanel.add(panel);
+        JMenu algorithmMenu = new JMenu("Algorithms");
+        for (SortAlgorithm algorithm : SortAlgorithms.all()) {
+            JCheckBoxMenuItem item = new JCheckBoxMenuItem(algorithm.name(), true);
+            item.addActionListener(e -> rebuildPanels(algorithmMenu));
+            algorithmMenu.add(item);
         }
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(algorithmMenu);
+        setJMenuBar(menuBar);
+        rebuildPanels(algorithmMenu);
         
         add(mainPanel, BorderLayout.CENTER);
         
@@ -72,90 +149,301 @@ public class SortingVisualizer extends JFrame {
         generateRandomArray();
     }
     
+    /** Recreates one panel per checked algorithm in a near-square grid. */
+    private void rebuildPanels(JMenu algorithmMenu) {
+        cancelSorting();
+        for (SortPanel panel : sortPanels) {
+            panel.cancel();
+            panel.closeLoadedTrace();
+        }
+        sortPanels.clear();
+        mainPanel.removeAll();
+        
+        for (int i = 0; i < algorithmMenu.getItemCount(); i++) {
+            JMenuItem item = algorithmMenu.getItem(i);
+            if (item.isSelected()) {
+                SortPanel panel = new SortPanel(SortAlgorithms.get(item.getText()));
+                sortPanels.add(panel);
+                mainPanel.add(panel);
+            }
+        }
+        int cols = Math.max(1, (int) Math.ceil(Math.sqrt(sortPanels.size())));
+        int rows = Math.max(1, (sortPanels.size() + cols - 1) / cols);
+        mainPanel.setLayout(new GridLayout(rows, cols, 10, 10));
+        mainPanel.revalidate();
+        mainPanel.repaint();
+        if (originalArray != null) {
+            for (SortPanel panel : sortPanels) {
+                panel.setArray(originalArray.clone());
+            }
+        }
+    }
+    
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+    
+    /** Replay frame interval matching the screen refresh rate, 60Hz if it cannot be determined. */
+    private static int frameIntervalMs() {
+        int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+        if (!GraphicsEnvironment.isHeadless()) {
+            refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        if (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN || refreshRate <= 0) refreshRate = 60;
+        return Math.max(1, 1000 / refreshRate);
+    }
+    
+    /**
+     * Generates the input straight into an int[] that is handed to the panels
+     * as is. Small arrays are also shown in the input field so they can be
+     * edited; editing the field switches back to parsing it.
+     */
     private void generateRandomArray() {
-        Random rand = new Random();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 12; i++) {
-            sb.append(rand.nextInt(100) + 1);
-            if (i < 11) sb.append(",");
+        int n = (Integer) sizeSpinner.getValue();
+        InputGenerator.Distribution distribution = (InputGenerator.Distribution) distributionBox.getSelectedItem();
+        long seed = seeds.nextLong();
+        int[] array = new InputGenerator(distribution).seed(seed).bound(Math.max(100, n)).generate(n);
+        
+        if (n <= MAX_EDITABLE_VALUES) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                if (i > 0) sb.append(",");
+                sb.append(array[i]);
+            }
+            inputField.setText(sb.toString());
+        } else {
+            inputField.setText(String.format("%,d %s values", n, distribution.label()));
         }
-        inputField.setText(sb.toString());
+        inputField.setCaretPosition(0);
+        generatedArray = array;
+        randomButton.setToolTipText(distribution.label() + ", seed " + seed);
     }
     
     private void startSorting() {
-        String input = inputField.getText().trim();
         try {
-            String[] parts = input.split(",");
-            originalArray = new int[parts.length];
-            for (int i = 0; i < parts.length; i++) {
-                originalArray[i] = Integer.parseInt(parts[i].trim());
-            }
+            originalArray = generatedArray != null ? generatedArray
+                    : ArrayLoader.parseText(inputField.getText().trim().getBytes(StandardCharsets.US_ASCII));
             
             if (originalArray.length == 0) {
                 JOptionPane.showMessageDialog(this, "Please enter valid numbers!");
                 return;
             }
             
-            startButton.setEnabled(false);
-            randomButton.setEnabled(false);
+            cancelSorting();
+            cancelButton.setEnabled(true);
             rankingLabel.setText("Sorting in progress...");
             
-            for (SortPanel panel : sortPanels) {
-                panel.startSorting(originalArray.clone());
+            CompletableFuture<?>[] runs = new CompletableFuture<?>[sortPanels.size()];
+            for (int i = 0; i < runs.length; i++) {
+                runs[i] = sortPanels.get(i).startSorting(originalArray, incrementalBox.isSelected(), SORT_EXECUTOR);
             }
             
-        
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500);
-                    while (sortPanels.stream().anyMatch(p -> !p.isCompleted())) {
-                        Thread.sleep(100);
-                    }
-                    SwingUtilities.invokeLater(this::displayRankings);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
+            CompletableFuture<Void> run = CompletableFuture.allOf(runs);
+            currentRun = run;
+            run.whenCompleteAsync((ignored, error) -> {
+                if (run != currentRun) return;
+                currentRun = null;
+                cancelButton.setEnabled(false);
+                displayRankings();
+            }, SwingUtilities::invokeLater);
             
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Invalid input! Please enter numbers separated by commas.");
         }
     }
     
+    private void cancelSorting() {
+        if (currentRun == null) return;
+        currentRun = null;
+        for (SortPanel panel : sortPanels) {
+            panel.cancel();
+        }
+        cancelButton.setEnabled(false);
+        rankingLabel.setText("Sorting cancelled");
+    }
+    
+    /** Writes the last run's counters of every panel as JSON (for a .json file) or CSV. */
+    private void exportMetrics() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("sort-metrics.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        boolean json = file.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+        
+        List<String> rows = new ArrayList<>();
+        for (SortPanel panel : sortPanels) {
+            SortMetrics m = panel.getMetrics();
+            if (m == null) continue;
+            rows.add(json ? m.toJson(panel.getAlgorithmName()) : m.toCsvRow(panel.getAlgorithmName()));
+        }
+        if (rows.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Run a sort first to collect metrics.");
+            return;
+        }
+        
+        String content = json ? "[\n  " + String.join(",\n  ", rows) + "\n]\n"
+                              : SortMetrics.CSV_HEADER + "\n" + String.join("\n", rows) + "\n";
+        try {
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Could not write " + file + ": " + ex.getMessage());
+        }
+    }
+    
     private void displayRankings() {
-        List<SortPanel> ranked = new ArrayList<>(sortPanels);
+        List<SortPanel> ranked = new ArrayList<>();
+        for (SortPanel panel : sortPanels) {
+            if (panel.isCompleted()) ranked.add(panel);
+        }
         ranked.sort(Comparator.comparingLong(SortPanel::getExecutionTime));
         
-        StringBuilder sb = new StringBuilder("Rankings: ");
+        StringBuilder sb = new StringBuilder("Rankings (single run): ");
         for (int i = 0; i < ranked.size(); i++) {
             sb.append((i + 1)).append(". ").append(ranked.get(i).getAlgorithmName())
-              .append(" (").append(ranked.get(i).getExecutionTime()).append("ms)");
+              .append(" (").append(String.format("%.3f", ranked.get(i).getExecutionTime() / 1_000_000.0)).append("ms)");
             if (i < ranked.size() - 1) sb.append(" | ");
         }
         rankingLabel.setText(sb.toString());
+    }
+    
+    /**
+     * Observer for the timed run, which reports nothing else, so that a
+     * cancelled panel stops it at its next event instead of letting it hold
+     * a worker until it finishes.
+     */
+    private static final class StopSignal implements SortObserver {
+        private volatile boolean stopped;
+        
+        void stop() {
+            stopped = true;
+        }
+        
+        private void check() {
+            if (stopped) throw new CancellationException();
+        }
+        
+        @Override public void compare(int i, int j) { check(); }
+        @Override public void swap(int i, int j) { check(); }
+        @Override public void write(int index, int oldValue, int newValue) { check(); }
+        @Override public void sorted(int boundary) { check(); }
+        @Override public boolean isThreadSafe() { return true; }
+        @Override public boolean ignoresEvents() { return true; }
+    }
+    
+    private static final class SortResult {
+        final long nanos;
+        final SortTrace trace;
+        final SortMetrics metrics;
+        final IncrementalSorter.Update update;
         
-        startButton.setEnabled(true);
-        randomButton.setEnabled(true);
+        SortResult(long nanos, SortTrace trace, SortMetrics metrics, IncrementalSorter.Update update) {
+            this.nanos = nanos;
+            this.trace = trace;
+            this.metrics = metrics;
+            this.update = update;
+        }
     }
     
     class SortPanel extends JPanel {
-        private String algorithmName;
+        private final SortAlgorithm algorithm;
+        private final IncrementalSorter incremental;
+        private String runNote = "";
         private int[] array;
+        private TraceSource trace;
+        private long position;
+        private long scrubScale = 1;
+        private TraceFile loadedTrace;
+        private Path loadedPath;
+        private IncrementalSorter.Update lastUpdate;
+        private double pendingSteps;
         private int comparing1 = -1, comparing2 = -1;
         private int sorted = -1;
-        private long executionTime = 0;
-        private boolean completed = false;
+        private int maxValue = 1;
+        private int dirtyFrom = -1, dirtyTo = -1;
+        private boolean paintedDone;
+        private RasterRenderer raster;
+        private final javax.swing.Timer rasterTimer;
+        private volatile long executionTime = 0; // nanoseconds, from an untraced run
+        private volatile boolean completed = false;
+        private int runGeneration;
+        private Future<?> sortTask;
+        private Future<?> liveTask;
+        private boolean liveFinished;
+        private StopSignal stopSignal;
+        private CompletableFuture<SortResult> sortResult;
         private JLabel statusLabel;
+        private JLabel metricsLabel;
+        private JPanel controlsPanel;
+        private SortMetrics metrics;
+        private final long[] replayCounts = new long[4];
+        private JSlider scrubber;
+        private JButton playButton;
+        private boolean updatingScrubber;
+        private final javax.swing.Timer replayTimer;
         
-        public SortPanel(String algorithmName) {
-            this.algorithmName = algorithmName;
+        public SortPanel(SortAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            this.incremental = new IncrementalSorter(algorithm);
             setLayout(new BorderLayout());
-            setBorder(BorderFactory.createTitledBorder(algorithmName));
+            setBorder(BorderFactory.createTitledBorder(algorithm.name()));
             setBackground(Color.WHITE);
             
             statusLabel = new JLabel("Ready", SwingConstants.CENTER);
             statusLabel.setFont(new Font("Arial", Font.PLAIN, 11));
-            add(statusLabel, BorderLayout.SOUTH);
+            metricsLabel = new JLabel(" ", SwingConstants.CENTER);
+            metricsLabel.setFont(new Font("Arial", Font.PLAIN, 10));
+            
+            playButton = new JButton("Pause");
+            playButton.setMargin(new Insets(0, 4, 0, 4));
+            playButton.setEnabled(false);
+            playButton.addActionListener(e -> togglePlayback());
+            
+            scrubber = new JSlider(0, 0, 0);
+            scrubber.setOpaque(false);
+            scrubber.setEnabled(false);
+            scrubber.addChangeListener(e -> {
+                if (!updatingScrubber) {
+                    pauseReplay();
+                    int value = scrubber.getValue();
+                    seek(value == scrubber.getMaximum() ? trace.steps() : value * scrubScale);
+                }
+            });
+            
+            JPanel controls = new JPanel(new BorderLayout(5, 0));
+            controls.setOpaque(false);
+            controls.add(playButton, BorderLayout.WEST);
+            controls.add(scrubber, BorderLayout.CENTER);
+            
+            controlsPanel = new JPanel(new GridLayout(3, 1));
+            controlsPanel.setOpaque(false);
+            controlsPanel.add(controls);
+            controlsPanel.add(statusLabel);
+            controlsPanel.add(metricsLabel);
+            add(controlsPanel, BorderLayout.SOUTH);
+            
+            replayTimer = new javax.swing.Timer(REPLAY_TICK_MS, e -> replayTick());
+            rasterTimer = new javax.swing.Timer(REPLAY_TICK_MS, e -> {
+                if (metrics != null) metricsLabel.setText(metrics.summary());
+                if (raster != null) {
+                    statusLabel.setText(String.format("%s | drawing live, step %,d", completedText(), raster.frame().steps()));
+                }
+                repaint();
+            });
+            
+            JPopupMenu traceMenu = new JPopupMenu();
+            JMenuItem saveItem = new JMenuItem("Save Trace...");
+            saveItem.addActionListener(e -> saveTrace());
+            traceMenu.add(saveItem);
+            JMenuItem loadItem = new JMenuItem("Load Trace...");
+            loadItem.addActionListener(e -> loadTrace());
+            traceMenu.add(loadItem);
+            setComponentPopupMenu(traceMenu);
             
             addMouseListener(new MouseAdapter() {
                 @Override
@@ -167,219 +455,489 @@ public class SortingVisualizer extends JFrame {
             setCursor(new Cursor(Cursor.HAND_CURSOR));
         }
         
-        public void startSorting(int[] arr) {
-            this.array = arr;
+        /**
+         * Sorts {@code arr} on {@code executor} and then starts the replay on the EDT.
+         * The returned future completes on the EDT once the result has been applied
+         * to this panel, or exceptionally if the run failed or was cancelled. An
+         * incremental run only sorts, and replays, what changed since the last run.
+         * Runs too long to trace are drawn live from the start, alongside the timed
+         * run. {@code arr} is only read, so all panels may share one array.
+         */
+        public CompletableFuture<Void> startSorting(int[] arr, boolean incrementalRun, ExecutorService executor) {
+            cancel();
+            closeLoadedTrace();
+            this.trace = null;
+            this.raster = null;
+            this.liveFinished = false;
+            this.lastUpdate = null;
+            setArray(arr);
+            this.position = 0;
             this.comparing1 = -1;
             this.comparing2 = -1;
             this.sorted = -1;
             this.completed = false;
             this.executionTime = 0;
+            this.metrics = null;
+            this.runNote = "";
+            Arrays.fill(replayCounts, 0);
+            metricsLabel.setText(" ");
+            playButton.setEnabled(false);
+            scrubber.setEnabled(false);
+            statusLabel.setText("Sorting...");
+            repaint();
             
-            Thread sortThread = new Thread(() -> {
-                long startTime = System.currentTimeMillis();
-                
-                switch (algorithmName) {
-                    case "Bubble Sort": bubbleSort(); break;
-                    case "Selection Sort": selectionSort(); break;
-                    case "Insertion Sort": insertionSort(); break;
-                    case "Merge Sort": mergeSort(0, array.length - 1); break;
-                    case "Quick Sort": quickSort(0, array.length - 1); break;
-                    case "Heap Sort": heapSort(); break;
+            int generation = runGeneration;
+            CompletableFuture<SortResult> result = new CompletableFuture<>();
+            sortResult = result;
+            StopSignal stop = new StopSignal();
+            stopSignal = stop;
+            sortTask = executor.submit(() -> {
+                try {
+                    result.complete(sort(arr, incrementalRun, stop, generation));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
                 }
-                
-                executionTime = System.currentTimeMillis() - startTime;
+            });
+            
+            return result.handleAsync((done, error) -> {
+                if (generation != runGeneration) {
+                    throw new CancellationException();
+                }
+                sortTask = null;
+                sortResult = null;
+                stopSignal = null;
+                if (error != null) {
+                    statusLabel.setText("Failed: " + rootCause(error));
+                    throw new CompletionException(error);
+                }
+                executionTime = done.nanos;
+                metrics = done.metrics;
                 completed = true;
+                lastUpdate = done.update;
+                if (incrementalRun) runNote = " (" + done.update + ")";
+                if (done.trace != null) {
+                    startReplay(done.trace);
+                } else if (raster == null) {
+                    startLiveRender(done.update, done.metrics);
+                } else if (liveFinished) {
+                    showLiveFinished();
+                }
+                return null;
+            }, SwingUtilities::invokeLater);
+        }
+        
+        private SortResult sort(int[] arr, boolean incrementalRun, StopSignal stop, int generation) {
+            // A full run still becomes the base that the next incremental run diffs against.
+            IncrementalSorter.Update update = incrementalRun ? incremental.update(arr) : incremental.full(arr);
+            SortMetrics counters = new SortMetrics(arr.length);
+            boolean traced = minimumEvents(update, arr.length) <= MAX_TRACED_EVENTS;
+            if (!traced) {
+                // The live render counts the events; the timed run below only supplies the time.
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == runGeneration) startLiveRender(update, counters);
+                });
+            }
+            
+            // Time a plain run first so the recorded trace does not count towards it.
+            int[] timed = update.workingArray();
+            long startTime = System.nanoTime();
+            update.sort(timed, stop);
+            long elapsed = System.nanoTime() - startTime;
+            update.commit(timed);
+            if (Thread.interrupted()) {
+                throw new CancellationException();
+            }
+            counters.setNanos(elapsed);
+            if (!traced) {
+                return new SortResult(elapsed, null, counters, update);
+            }
+            
+            int[] working = update.workingArray();
+            SortTrace recorded = new SortTrace(working, MAX_TRACED_EVENTS);
+            try {
+                update.sort(working, SortObserver.both(recorded, counters));
+            } catch (SortTrace.LimitExceededException e) {
+                // Longer than projected: draw it live after all, counting from scratch.
+                SortMetrics live = new SortMetrics(arr.length);
+                live.setNanos(elapsed);
+                return new SortResult(elapsed, null, live, update);
+            }
+            return new SortResult(elapsed, recorded, counters, update);
+        }
+        
+        /**
+         * Fewest events the planned re-sort can report. A full sort of n
+         * elements makes at least log2(n!) compares if it compares at all;
+         * radix and counting sorts, which may make fewer, only go live a
+         * little early. Incremental updates are left to the trace limit.
+         */
+        private long minimumEvents(IncrementalSorter.Update update, int n) {
+            if (update.strategy() != IncrementalSorter.Strategy.FULL || n < 2) return 0;
+            double log2 = Math.log(n) / Math.log(2);
+            return (long) (n * log2 - 1.443 * n);
+        }
+        
+        /**
+         * Sorts a fresh copy of the update's input with a {@link RasterRenderer}
+         * attached, counting into {@code counters} and paced so that a faster
+         * Steps/sec setting shows more operations per frame.
+         */
+        private void startLiveRender(IncrementalSorter.Update update, SortMetrics counters) {
+            int[] arr = update.workingArray();
+            int stepsPerFrame = (int) Math.max(1, (long) speedSlider.getValue() * arr.length / 2000);
+            raster = new RasterRenderer(arr, getWidth() - 20, plotHeight(),
+                    stepsPerFrame, REPLAY_TICK_MS * 1_000_000L);
+            RasterRenderer renderer = raster;
+            int generation = runGeneration;
+            statusLabel.setText(completedText() + " | drawing live...");
+            rasterTimer.start();
+            liveTask = LIVE_EXECUTOR.submit(() -> {
+                update.sort(arr, SortObserver.both(renderer, counters));
+                renderer.finish();
                 SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Completed in " + executionTime + "ms");
-                    repaint();
+                    if (generation != runGeneration) return;
+                    rasterTimer.stop();
+                    liveTask = null;
+                    liveFinished = true;
+                    showLiveFinished();
                 });
             });
-            sortThread.start();
-        }
-        
-        private void bubbleSort() {
-            for (int i = 0; i < array.length - 1; i++) {
-                for (int j = 0; j < array.length - i - 1; j++) {
-                    comparing1 = j;
-                    comparing2 = j + 1;
-                    visualize();
-                    
-                    if (array[j] > array[j + 1]) {
-                        swap(j, j + 1);
-                    }
-                }
-                sorted = array.length - i - 1;
+        }
+        
+        private void showLiveFinished() {
+            statusLabel.setText(completedText() + " | " + array.length + " elements");
+            if (metrics != null) metricsLabel.setText(metrics.summary());
+            repaint();
+        }
+        
+        /** Stops any in-flight sort and replay; a result that arrives later is discarded. */
+        public void cancel() {
+            runGeneration++;
+            replayTimer.stop();
+            rasterTimer.stop();
+            playButton.setText("Play");
+            if (stopSignal != null) {
+                stopSignal.stop();
+                stopSignal = null;
             }
-            sorted = 0;
-            comparing1 = comparing2 = -1;
-            visualize();
-        }
-        
-        private void selectionSort() {
-            for (int i = 0; i < array.length - 1; i++) {
-                int minIdx = i;
-                for (int j = i + 1; j < array.length; j++) {
-                    comparing1 = minIdx;
-                    comparing2 = j;
-                    visualize();
-                    
-                    if (array[j] < array[minIdx]) {
-                        minIdx = j;
+            if (liveTask != null) {
+                liveTask.cancel(true);
+                liveTask = null;
+                statusLabel.setText("Cancelled");
+            }
+            if (sortTask != null) {
+                sortTask.cancel(true);
+                if (sortResult != null) sortResult.cancel(false);
+                statusLabel.setText("Cancelled");
+                sortTask = null;
+                sortResult = null;
+            }
+        }
+        
+        private String rootCause(Throwable error) {
+            while (error.getCause() != null) error = error.getCause();
+            return error.getClass().getSimpleName();
+        }
+        
+        /**
+         * Writes the trace of the last run to a file on a worker thread. Runs
+         * too long to have been traced are sorted again straight into the file;
+         * a loaded trace is copied.
+         */
+        private void saveTrace() {
+            if (trace == null && lastUpdate == null) {
+                JOptionPane.showMessageDialog(SortingVisualizer.this, "Run a sort first to save its trace.");
+                return;
+            }
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File(algorithm.name().toLowerCase(Locale.ROOT).replaceAll("\\W+", "-") + ".trace"));
+            if (chooser.showSaveDialog(SortingVisualizer.this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = chooser.getSelectedFile().toPath();
+            
+            Path copyFrom = loadedPath;
+            TraceSource recorded = loadedTrace == null ? trace : null;
+            IncrementalSorter.Update update = lastUpdate;
+            CompletableFuture.runAsync(() -> {
+                boolean saved = false;
+                try {
+                    if (copyFrom != null) {
+                        Files.copy(copyFrom, file, StandardCopyOption.REPLACE_EXISTING);
+                    } else if (recorded != null) {
+                        TraceFile.write(file, algorithm.name(), recorded);
+                    } else {
+                        int[] input = update.workingArray();
+                        try (TraceFile.Writer writer = TraceFile.create(file, algorithm.name(), input)) {
+                            update.sort(input, writer);
+                            writer.finish();
+                        }
                     }
+                    saved = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    if (!saved) deletePartial(file);
+                }
+            }, SORT_EXECUTOR).whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    JOptionPane.showMessageDialog(SortingVisualizer.this, "Could not save " + file + ": " + rootCause(error));
                 }
-                swap(i, minIdx);
-                sorted = i;
+            }, SwingUtilities::invokeLater);
+        }
+        
+        /** Removes what a failed or cancelled save left behind, so it is not mistaken for a trace. */
+        private void deletePartial(Path file) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // An incomplete file is still rejected when loaded.
             }
-            sorted = 0;
-            comparing1 = comparing2 = -1;
-            visualize();
         }
         
-        private void insertionSort() {
-            for (int i = 1; i < array.length; i++) {
-                int key = array[i];
-                int j = i - 1;
-                
-                comparing1 = i;
-                while (j >= 0) {
-                    comparing2 = j;
-                    visualize();
-                    
-                    if (array[j] <= key) break;
-                    
-                    array[j + 1] = array[j];
-                    j--;
-                }
-                array[j + 1] = key;
-                sorted = i;
+        /** Replays a trace file in this panel; the file stays mapped until the next run or load. */
+        private void loadTrace() {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(SortingVisualizer.this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = chooser.getSelectedFile().toPath();
+            TraceFile opened;
+            try {
+                opened = TraceFile.open(file);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(SortingVisualizer.this, "Could not load " + file + ": " + e.getMessage());
+                return;
             }
-            sorted = 0;
+            cancel();
+            closeLoadedTrace();
+            loadedTrace = opened;
+            loadedPath = file;
+            raster = null;
+            lastUpdate = null;
+            completed = false;
+            executionTime = 0;
+            metrics = null;
+            runNote = "";
+            sorted = -1;
             comparing1 = comparing2 = -1;
-            visualize();
+            Arrays.fill(replayCounts, 0);
+            startReplay(opened);
         }
         
-        private void mergeSort(int left, int right) {
-            if (left < right) {
-                int mid = (left + right) / 2;
-                mergeSort(left, mid);
-                mergeSort(mid + 1, right);
-                merge(left, mid, right);
+        void closeLoadedTrace() {
+            if (loadedTrace == null) return;
+            try {
+                loadedTrace.close();
+            } catch (IOException ignored) {
+                // Read-only; nothing was left unwritten.
             }
+            if (trace == loadedTrace) trace = null;
+            loadedTrace = null;
+            loadedPath = null;
         }
         
-        private void merge(int left, int mid, int right) {
-            int n1 = mid - left + 1;
-            int n2 = right - mid;
-            
-            int[] L = new int[n1];
-            int[] R = new int[n2];
-            
-            System.arraycopy(array, left, L, 0, n1);
-            System.arraycopy(array, mid + 1, R, 0, n2);
-            
-            int i = 0, j = 0, k = left;
-            
-            while (i < n1 && j < n2) {
-                comparing1 = left + i;
-                comparing2 = mid + 1 + j;
-                visualize();
-                
-                if (L[i] <= R[j]) {
-                    array[k++] = L[i++];
-                } else {
-                    array[k++] = R[j++];
-                }
+        private String completedText() {
+            if (loadedTrace != null) return "Trace of " + loadedTrace.algorithm();
+            if (!completed) return "Timing the run";
+            return String.format("Completed in %.3fms%s", executionTime / 1_000_000.0, runNote);
+        }
+        
+        private void startReplay(TraceSource recorded) {
+            trace = recorded;
+            setArray(recorded.initialArray());
+            position = 0;
+            pendingSteps = 0;
+            // A JSlider counts in ints, so traces of more steps move it in coarser units.
+            scrubScale = recorded.steps() / Integer.MAX_VALUE + 1;
+            updatingScrubber = true;
+            scrubber.setMaximum((int) (recorded.steps() / scrubScale));
+            scrubber.setValue(0);
+            updatingScrubber = false;
+            scrubber.setEnabled(true);
+            playButton.setEnabled(true);
+            playButton.setText("Pause");
+            repaint();
+            replayTimer.start();
+        }
+        
+        private void replayTick() {
+            pendingSteps += speedSlider.getValue() * REPLAY_TICK_MS / 1000.0;
+            while (pendingSteps >= 1 && position < trace.steps()) {
+                stepForward();
+                pendingSteps--;
             }
-            
-            while (i < n1) array[k++] = L[i++];
-            while (j < n2) array[k++] = R[j++];
+            if (position == trace.steps()) {
+                pauseReplay();
+                highlight(-1, -1);
+            }
+            updateProgress();
         }
         
-        private void quickSort(int low, int high) {
-            if (low < high) {
-                int pi = partition(low, high);
-                quickSort(low, pi - 1);
-                quickSort(pi + 1, high);
+        private void togglePlayback() {
+            if (replayTimer.isRunning()) {
+                pauseReplay();
+            } else if (trace != null) {
+                if (position == trace.steps()) seek(0);
+                pendingSteps = 0;
+                playButton.setText("Pause");
+                replayTimer.start();
             }
         }
         
-        private int partition(int low, int high) {
-            int pivot = array[high];
-            int i = low - 1;
-            
-            for (int j = low; j < high; j++) {
-                comparing1 = j;
-                comparing2 = high;
-                visualize();
-                
-                if (array[j] < pivot) {
-                    i++;
-                    swap(i, j);
-                }
+        private void pauseReplay() {
+            replayTimer.stop();
+            playButton.setText("Play");
+        }
+        
+        private void stepForward() {
+            long event = trace.eventAt(position++);
+            replayCounts[SortTrace.op(event)]++;
+            SortTrace.apply(event, array);
+            markChanged(event);
+            showEvent(event);
+        }
+        
+        private void stepBackward() {
+            long event = trace.eventAt(--position);
+            replayCounts[SortTrace.op(event)]--;
+            SortTrace.apply(event, array);
+            markChanged(event);
+            if (SortTrace.op(event) == SortTrace.SORTED) {
+                setSorted(SortTrace.b(event));
+            }
+            highlight(-1, -1);
+            if (position > 0) {
+                long previous = trace.eventAt(position - 1);
+                if (SortTrace.op(previous) != SortTrace.SORTED) showEvent(previous);
             }
-            swap(i + 1, high);
-            return i + 1;
         }
         
-        private void heapSort() {
-            int n = array.length;
-            
-            for (int i = n / 2 - 1; i >= 0; i--) {
-                heapify(n, i);
+        private void showEvent(long event) {
+            switch (SortTrace.op(event)) {
+                case SortTrace.SORTED:
+                    setSorted(SortTrace.a(event));
+                    break;
+                case SortTrace.WRITE:
+                    highlight(SortTrace.a(event), -1);
+                    break;
+                default:
+                    highlight(SortTrace.a(event), SortTrace.b(event));
+                    break;
             }
-            
-            for (int i = n - 1; i > 0; i--) {
-                swap(0, i);
-                heapify(i, 0);
-                sorted = i;
+        }
+        
+        private void markChanged(long event) {
+            int op = SortTrace.op(event);
+            if (op == SortTrace.SWAP) {
+                markDirty(SortTrace.a(event));
+                markDirty(SortTrace.b(event));
+            } else if (op == SortTrace.WRITE) {
+                markDirty(SortTrace.a(event));
             }
-            sorted = 0;
-            comparing1 = comparing2 = -1;
-            visualize();
         }
         
-        private void heapify(int n, int i) {
-            int largest = i;
-            int left = 2 * i + 1;
-            int right = 2 * i + 2;
-            
-            if (left < n) {
-                comparing1 = left;
-                comparing2 = largest;
-                visualize();
-                if (array[left] > array[largest]) {
-                    largest = left;
-                }
+        private void highlight(int c1, int c2) {
+            markDirty(comparing1);
+            markDirty(comparing2);
+            comparing1 = c1;
+            comparing2 = c2;
+            markDirty(c1);
+            markDirty(c2);
+        }
+        
+        private void setSorted(int boundary) {
+            if (boundary == sorted) return;
+            int from = Math.min(boundary, sorted), to = Math.max(boundary, sorted);
+            if (from < 0) {
+                from = to;
+                to = array.length - 1;
             }
-            
-            if (right < n) {
-                comparing1 = right;
-                comparing2 = largest;
-                visualize();
-                if (array[right] > array[largest]) {
-                    largest = right;
-                }
+            markDirty(from);
+            markDirty(to);
+            sorted = boundary;
+        }
+        
+        private void markDirty(int index) {
+            if (index < 0 || index >= array.length) return;
+            if (dirtyFrom < 0 || index < dirtyFrom) dirtyFrom = index;
+            if (index > dirtyTo) dirtyTo = index;
+        }
+        
+        /**
+         * Moves the replay to {@code target}. Long jumps restore the nearest
+         * checkpoint when that leaves fewer events to apply, as restoring
+         * costs about as much as applying one event per element.
+         */
+        private void seek(long target) {
+            if (trace == null) return;
+            long distance = Math.abs(target - position);
+            if (distance > array.length) {
+                TraceSource.Checkpoint checkpoint = trace.checkpoint(target);
+                if (target - checkpoint.step < distance) restore(checkpoint);
             }
-            
-            if (largest != i) {
-                swap(i, largest);
-                heapify(n, largest);
+            while (position < target) stepForward();
+            while (position > target) stepBackward();
+            if (position == trace.steps()) highlight(-1, -1);
+            updateProgress();
+        }
+        
+        private void restore(TraceSource.Checkpoint checkpoint) {
+            System.arraycopy(checkpoint.array, 0, array, 0, array.length);
+            System.arraycopy(checkpoint.counts, 0, replayCounts, 0, replayCounts.length);
+            position = checkpoint.step;
+            sorted = checkpoint.sorted;
+            comparing1 = comparing2 = -1;
+            dirtyFrom = 0;
+            dirtyTo = array.length - 1;
+        }
+        
+        private void updateProgress() {
+            updatingScrubber = true;
+            scrubber.setValue((int) (position / scrubScale));
+            updatingScrubber = false;
+            statusLabel.setText(String.format("%s | step %,d/%,d", completedText(), position, trace.steps()));
+            if (position == trace.steps() && metrics != null) {
+                metricsLabel.setText(metrics.summary());
+            } else {
+                metricsLabel.setText(String.format("cmp %,d | swp %,d | wr %,d",
+                        replayCounts[SortTrace.COMPARE], replayCounts[SortTrace.SWAP], replayCounts[SortTrace.WRITE]));
             }
+            repaintDirty();
         }
         
-        private void swap(int i, int j) {
-            int temp = array[i];
-            array[i] = array[j];
-            array[j] = temp;
+        /** Repaints only the bars touched since the last frame, or everything if the finished state flipped. */
+        private void repaintDirty() {
+            boolean done = position == trace.steps();
+            if (done != paintedDone) {
+                paintedDone = done;
+                repaint();
+            } else if (dirtyFrom >= 0) {
+                int x0 = columnX(dirtyFrom);
+                int x1 = columnX(dirtyTo + 1) + 1;
+                repaint(x0, 0, x1 - x0, getHeight());
+            }
+            dirtyFrom = dirtyTo = -1;
         }
         
-        private void visualize() {
-            SwingUtilities.invokeLater(this::repaint);
-            try {
-                Thread.sleep(50); 
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        /** Height available for the bars above the controls and labels. */
+        private int plotHeight() {
+            return getHeight() - controlsPanel.getHeight() - 35;
+        }
+        
+        /** Left edge of bar {@code index}; in column mode several indices share a pixel column. */
+        private int columnX(int index) {
+            int width = getWidth() - 20;
+            int barWidth = width / array.length;
+            if (barWidth >= MIN_BAR_WIDTH) {
+                return 10 + index * barWidth;
             }
+            return 10 + (int) ((long) index * width / array.length);
+        }
+        
+        private void setArray(int[] arr) {
+            array = arr;
+            int max = 1;
+            for (int v : arr) max = Math.max(max, v);
+            maxValue = max;
+            dirtyFrom = dirtyTo = -1;
+            paintedDone = false;
         }
         
         @Override
@@ -388,169 +946,88 @@ public class SortingVisualizer extends JFrame {
             if (array == null) return;
             
             Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
             int width = getWidth() - 20;
-            int height = getHeight() - 50;
+            int height = plotHeight();
+            if (raster != null) {
+                g2d.drawImage(raster.frame().image(), 10, 10, width, height, null);
+                return;
+            }
             int barWidth = width / array.length;
-            int maxValue = Arrays.stream(array).max().orElse(1);
+            boolean done = trace != null && position == trace.steps();
+            
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            
+            if (barWidth >= MIN_BAR_WIDTH) {
+                paintBars(g2d, clip, barWidth, height, done);
+            } else {
+                paintColumns(g2d, clip, width, height, done);
+            }
+        }
+        
+        private void paintBars(Graphics2D g2d, Rectangle clip, int barWidth, int height, boolean done) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            boolean labels = barWidth >= MIN_LABEL_WIDTH;
+            g2d.setFont(LABEL_FONT);
+            FontMetrics metrics = g2d.getFontMetrics();
             
-            for (int i = 0; i < array.length; i++) {
+            int first = Math.max(0, (clip.x - 10) / barWidth);
+            int last = Math.min(array.length - 1, (clip.x + clip.width - 10) / barWidth);
+            for (int i = first; i <= last; i++) {
                 int barHeight = (int) ((double) array[i] / maxValue * height);
                 int x = 10 + i * barWidth;
                 int y = height - barHeight + 10;
                 
-                if (completed) {
-                    g2d.setColor(new Color(46, 204, 113));
-                } else if (i == comparing1 || i == comparing2) {
-                    g2d.setColor(new Color(231, 76, 60)); 
-                } else if (sorted >= 0 && i >= sorted) {
-                    g2d.setColor(new Color(52, 152, 219)); 
-                } else {
-                    g2d.setColor(new Color(149, 165, 166));
-                }
-                
+                g2d.setColor(barColor(i, done));
                 g2d.fillRect(x, y, barWidth - 2, barHeight);
                 g2d.setColor(Color.BLACK);
                 g2d.drawRect(x, y, barWidth - 2, barHeight);
                 
-              
-                g2d.setFont(new Font("Arial", Font.PLAIN, 9));
-                String value = String.valueOf(array[i]);
-                int strWidth = g2d.getFontMetrics().stringWidth(value);
-                g2d.drawString(value, x + (barWidth - strWidth) / 2, y - 2);
+                if (labels) {
+                    String value = String.valueOf(array[i]);
+                    int strWidth = metrics.stringWidth(value);
+                    g2d.drawString(value, x + (barWidth - strWidth) / 2, y - 2);
+                }
             }
         }
         
-        private void showCode() {
-            String code = getAlgorithmCode();
-            codeArea.setText(code);
-            codeArea.setCaretPosition(0);
+        /** Density mode: one pixel column per group of indices, drawn at the group's maximum. */
+        private void paintColumns(Graphics2D g2d, Rectangle clip, int width, int height, boolean done) {
+            int n = array.length;
+            int firstColumn = Math.max(0, clip.x - 10);
+            int lastColumn = Math.min(width - 1, clip.x + clip.width - 10);
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int from = (int) ((long) c * n / width);
+                int to = (int) ((long) (c + 1) * n / width);
+                if (to <= from) continue;
+                int max = Integer.MIN_VALUE;
+                Color color = null;
+                for (int i = from; i < to; i++) {
+                    max = Math.max(max, array[i]);
+                    if (i == comparing1 || i == comparing2) color = COMPARING;
+                }
+                if (color == null) color = barColor(to - 1, done);
+                int barHeight = (int) ((double) max / maxValue * height);
+                g2d.setColor(color);
+                g2d.drawLine(10 + c, height + 10, 10 + c, height + 10 - barHeight);
+            }
         }
         
-        private String getAlgorithmCode() {
-            switch (algorithmName) {
-                case "Bubble Sort":
-                    return "// Bubble Sort - O(n²)\n" +
-                           "void bubbleSort(int[] arr) {\n" +
-                           "    for (int i = 0; i < arr.length - 1; i++) {\n" +
-                           "        for (int j = 0; j < arr.length - i - 1; j++) {\n" +
-                           "            if (arr[j] > arr[j + 1]) {\n" +
-                           "                // Swap arr[j] and arr[j+1]\n" +
-                           "                int temp = arr[j];\n" +
-                           "                arr[j] = arr[j + 1];\n" +
-                           "                arr[j + 1] = temp;\n" +
-                           "            }\n" +
-                           "        }\n" +
-                           "    }\n" +
-                           "}";
-                           
-                case "Selection Sort":
-                    return "// Selection Sort - O(n²)\n" +
-                           "void selectionSort(int[] arr) {\n" +
-                           "    for (int i = 0; i < arr.length - 1; i++) {\n" +
-                           "        int minIdx = i;\n" +
-                           "        for (int j = i + 1; j < arr.length; j++) {\n" +
-                           "            if (arr[j] < arr[minIdx]) {\n" +
-                           "                minIdx = j;\n" +
-                           "            }\n" +
-                           "        }\n" +
-                           "        // Swap arr[i] and arr[minIdx]\n" +
-                           "        int temp = arr[i];\n" +
-                           "        arr[i] = arr[minIdx];\n" +
-                           "        arr[minIdx] = temp;\n" +
-                           "    }\n" +
-                           "}";
-                           
-                case "Insertion Sort":
-                    return "// Insertion Sort - O(n²)\n" +
-                           "void insertionSort(int[] arr) {\n" +
-                           "    for (int i = 1; i < arr.length; i++) {\n" +
-                           "        int key = arr[i];\n" +
-                           "        int j = i - 1;\n" +
-                           "        while (j >= 0 && arr[j] > key) {\n" +
-                           "            arr[j + 1] = arr[j];\n" +
-                           "            j--;\n" +
-                           "        }\n" +
-                           "        arr[j + 1] = key;\n" +
-                           "    }\n" +
-                           "}";
-                           
-                case "Merge Sort":
-                    return "// Merge Sort - O(n log n)\n" +
-                           "void mergeSort(int[] arr, int left, int right) {\n" +
-                           "    if (left < right) {\n" +
-                           "        int mid = (left + right) / 2;\n" +
-                           "        mergeSort(arr, left, mid);\n" +
-                           "        mergeSort(arr, mid + 1, right);\n" +
-                           "        merge(arr, left, mid, right);\n" +
-                           "    }\n" +
-                           "}\n\n" +
-                           "void merge(int[] arr, int l, int m, int r) {\n" +
-                           "    // Create temp arrays and merge them\n" +
-                           "    int[] L = Arrays.copyOfRange(arr, l, m + 1);\n" +
-                           "    int[] R = Arrays.copyOfRange(arr, m + 1, r + 1);\n" +
-                           "    int i = 0, j = 0, k = l;\n" +
-                           "    while (i < L.length && j < R.length) {\n" +
-                           "        arr[k++] = (L[i] <= R[j]) ? L[i++] : R[j++];\n" +
-                           "    }\n" +
-                           "    while (i < L.length) arr[k++] = L[i++];\n" +
-                           "    while (j < R.length) arr[k++] = R[j++];\n" +
-                           "}";
-                           
-                case "Quick Sort":
-                    return "// Quick Sort - O(n log n) average\n" +
-                           "void quickSort(int[] arr, int low, int high) {\n" +
-                           "    if (low < high) {\n" +
-                           "        int pi = partition(arr, low, high);\n" +
-                           "        quickSort(arr, low, pi - 1);\n" +
-                           "        quickSort(arr, pi + 1, high);\n" +
-                           "    }\n" +
-                           "}\n\n" +
-                           "int partition(int[] arr, int low, int high) {\n" +
-                           "    int pivot = arr[high];\n" +
-                           "    int i = low - 1;\n" +
-                           "    for (int j = low; j < high; j++) {\n" +
-                           "        if (arr[j] < pivot) {\n" +
-                           "            i++;\n" +
-                           "            swap(arr, i, j);\n" +
-                           "        }\n" +
-                           "    }\n" +
-                           "    swap(arr, i + 1, high);\n" +
-                           "    return i + 1;\n" +
-                           "}";
-                           
-                case "Heap Sort":
-                    return "// Heap Sort - O(n log n)\n" +
-                           "void heapSort(int[] arr) {\n" +
-                           "    int n = arr.length;\n" +
-                           "    // Build max heap\n" +
-                           "    for (int i = n / 2 - 1; i >= 0; i--) {\n" +
-                           "        heapify(arr, n, i);\n" +
-                           "    }\n" +
-                           "    // Extract elements from heap\n" +
-                           "    for (int i = n - 1; i > 0; i--) {\n" +
-                           "        swap(arr, 0, i);\n" +
-                           "        heapify(arr, i, 0);\n" +
-                           "    }\n" +
-                           "}\n\n" +
-                           "void heapify(int[] arr, int n, int i) {\n" +
-                           "    int largest = i, left = 2*i + 1, right = 2*i + 2;\n" +
-                           "    if (left < n && arr[left] > arr[largest]) largest = left;\n" +
-                           "    if (right < n && arr[right] > arr[largest]) largest = right;\n" +
-                           "    if (largest != i) {\n" +
-                           "        swap(arr, i, largest);\n" +
-                           "        heapify(arr, n, largest);\n" +
-                           "    }\n" +
-                           "}";
-                           
-                default:
-                    return "Code not available";
-            }
+        private Color barColor(int i, boolean done) {
+            if (done) return DONE;
+            if (i == comparing1 || i == comparing2) return COMPARING;
+            if (sorted >= 0 && i >= sorted) return SORTED;
+            return UNSORTED;
+        }
+        
+        private void showCode() {
+            codeArea.setText(algorithm.code());
+            codeArea.setCaretPosition(0);
         }
         
-        public String getAlgorithmName() { return algorithmName; }
+        public String getAlgorithmName() { return algorithm.name(); }
         public long getExecutionTime() { return executionTime; }
+        public SortMetrics getMetrics() { return metrics; }
         public boolean isCompleted() { return completed; }
     }
 }
\ No newline at end of file
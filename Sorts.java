@@ -0,0 +1,422 @@
+/**
+ * Headless versions of the algorithms animated by {@link SortingVisualizer}.
+ * They work on a plain int[] with no repaint or sleep calls, so they can be
+ * timed on their own. Each algorithm reports its operations to a
+ * {@link SortObserver}; the single-argument overloads pass
+ * {@link SortObserver#NONE}.
+ */
+public final class Sorts {
+    static final int INSERTION_THRESHOLD = 32;
+
+    private Sorts() {
+    }
+
+    public static void bubbleSort(int[] array) {
+        bubbleSort(array, SortObserver.NONE);
+    }
+
+    public static void bubbleSort(int[] array, SortObserver o) {
+        for (int i = 0; i < array.length - 1; i++) {
+            for (int j = 0; j < array.length - i - 1; j++) {
+                o.compare(j, j + 1);
+                if (array[j] > array[j + 1]) {
+                    swap(array, j, j + 1, o);
+                }
+            }
+            o.sorted(array.length - i - 1);
+        }
+        o.sorted(0);
+    }
+
+    public static void selectionSort(int[] array) {
+        selectionSort(array, SortObserver.NONE);
+    }
+
+    public static void selectionSort(int[] array, SortObserver o) {
+        for (int i = 0; i < array.length - 1; i++) {
+            int minIdx = i;
+            for (int j = i + 1; j < array.length; j++) {
+                o.compare(minIdx, j);
+                if (array[j] < array[minIdx]) {
+                    minIdx = j;
+                }
+            }
+            swap(array, i, minIdx, o);
+            o.sorted(i);
+        }
+        o.sorted(0);
+    }
+
+    public static void insertionSort(int[] array) {
+        insertionSort(array, SortObserver.NONE);
+    }
+
+    public static void insertionSort(int[] array, SortObserver o) {
+        for (int i = 1; i < array.length; i++) {
+            int key = array[i];
+            int j = i - 1;
+            while (j >= 0) {
+                o.compare(j, j + 1);
+                if (array[j] <= key) break;
+                set(array, j + 1, array[j], o);
+                j--;
+            }
+            set(array, j + 1, key, o);
+            o.sorted(i);
+        }
+        o.sorted(0);
+    }
+
+    public static void mergeSort(int[] array) {
+        mergeSort(array, SortObserver.NONE);
+    }
+
+    public static void mergeSort(int[] array, SortObserver o) {
+        mergeSort(array, 0, array.length - 1, 0, o);
+    }
+
+    private static void mergeSort(int[] array, int left, int right, int depth, SortObserver o) {
+        o.depth(depth);
+        if (left < right) {
+            int mid = (left + right) / 2;
+            mergeSort(array, left, mid, depth + 1, o);
+            mergeSort(array, mid + 1, right, depth + 1, o);
+            merge(array, left, mid, right, o);
+        }
+    }
+
+    private static void merge(int[] array, int left, int mid, int right, SortObserver o) {
+        int n1 = mid - left + 1;
+        int n2 = right - mid;
+
+        int[] L = new int[n1];
+        int[] R = new int[n2];
+        o.allocate(4L * (n1 + n2));
+
+        System.arraycopy(array, left, L, 0, n1);
+        System.arraycopy(array, mid + 1, R, 0, n2);
+
+        int i = 0, j = 0, k = left;
+
+        while (i < n1 && j < n2) {
+            o.compare(left + i, mid + 1 + j);
+            if (L[i] <= R[j]) {
+                set(array, k++, L[i++], o);
+            } else {
+                set(array, k++, R[j++], o);
+            }
+        }
+
+        while (i < n1) set(array, k++, L[i++], o);
+        while (j < n2) set(array, k++, R[j++], o);
+    }
+
+    /**
+     * Top-down merge sort that allocates a single auxiliary buffer per run.
+     * Instead of copying halves out before every merge, each level sorts its
+     * halves into the other array and merges back, so source and buffer swap
+     * roles ("ping-pong") on the way down.
+     */
+    public static void pingPongMergeSort(int[] array) {
+        pingPongMergeSort(array, SortObserver.NONE);
+    }
+
+    public static void pingPongMergeSort(int[] array, SortObserver o) {
+        if (array.length < 2) return;
+        int[] buffer = array.clone();
+        o.allocate(4L * buffer.length);
+        pingPongMergeSort(buffer, array, 0, array.length, 0, array, o);
+    }
+
+    /** Sorts dst[from, to) using src, which holds the same elements, as scratch. */
+    private static void pingPongMergeSort(int[] src, int[] dst, int from, int to, int depth,
+                                          int[] array, SortObserver o) {
+        o.depth(depth);
+        SortObserver od = dst == array ? o : SortObserver.NONE;
+        if (to - from <= INSERTION_THRESHOLD) {
+            insertionSort(dst, from, to, od);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        pingPongMergeSort(dst, src, from, mid, depth + 1, array, o);
+        pingPongMergeSort(dst, src, mid, to, depth + 1, array, o);
+        mergeInto(src, dst, from, mid, to, od);
+    }
+
+    /**
+     * Bottom-up merge sort with a single auxiliary buffer. Runs of
+     * {@link #INSERTION_THRESHOLD} are insertion-sorted in place, then each pass
+     * merges pairs of runs from one array into the other.
+     */
+    public static void bottomUpMergeSort(int[] array) {
+        bottomUpMergeSort(array, SortObserver.NONE);
+    }
+
+    public static void bottomUpMergeSort(int[] array, SortObserver o) {
+        int n = array.length;
+        if (n < 2) return;
+        for (int from = 0; from < n; from += INSERTION_THRESHOLD) {
+            insertionSort(array, from, Math.min(from + INSERTION_THRESHOLD, n), o);
+        }
+
+        int[] src = array, dst = new int[n];
+        o.allocate(4L * n);
+        for (int width = INSERTION_THRESHOLD; width < n; width *= 2) {
+            SortObserver od = dst == array ? o : SortObserver.NONE;
+            for (int from = 0; from < n; from += 2 * width) {
+                int mid = Math.min(from + width, n);
+                int to = Math.min(from + 2 * width, n);
+                mergeInto(src, dst, from, mid, to, od);
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != array) {
+            for (int i = 0; i < n; i++) set(array, i, src[i], o);
+        }
+    }
+
+    /** Merges src[from, mid) and src[mid, to) into dst[from, to). */
+    private static void mergeInto(int[] src, int[] dst, int from, int mid, int to, SortObserver o) {
+        int i = from, j = mid;
+        for (int k = from; k < to; k++) {
+            if (i == mid) {
+                set(dst, k, src[j++], o);
+            } else if (j == to) {
+                set(dst, k, src[i++], o);
+            } else {
+                o.compare(i, j);
+                if (src[i] <= src[j]) {
+                    set(dst, k, src[i++], o);
+                } else {
+                    set(dst, k, src[j++], o);
+                }
+            }
+        }
+    }
+
+    public static void quickSort(int[] array) {
+        quickSort(array, SortObserver.NONE);
+    }
+
+    public static void quickSort(int[] array, SortObserver o) {
+        quickSort(array, 0, array.length - 1, 0, o);
+    }
+
+    private static void quickSort(int[] array, int low, int high, int depth, SortObserver o) {
+        o.depth(depth);
+        if (low < high) {
+            int pi = partition(array, low, high, o);
+            quickSort(array, low, pi - 1, depth + 1, o);
+            quickSort(array, pi + 1, high, depth + 1, o);
+        }
+    }
+
+    private static int partition(int[] array, int low, int high, SortObserver o) {
+        int pivot = array[high];
+        int i = low - 1;
+
+        for (int j = low; j < high; j++) {
+            o.compare(j, high);
+            if (array[j] < pivot) {
+                i++;
+                swap(array, i, j, o);
+            }
+        }
+        swap(array, i + 1, high, o);
+        return i + 1;
+    }
+
+    /**
+     * Quick sort hardened for production inputs: ninther (or median-of-three
+     * for smaller ranges) pivot selection, 3-way partitioning so runs of equal
+     * keys are finished in one pass, recursion only into the smaller side, and
+     * a heap sort fallback once the depth exceeds 2 * log2(n).
+     */
+    public static void introSort(int[] array) {
+        introSort(array, SortObserver.NONE);
+    }
+
+    public static void introSort(int[] array, SortObserver o) {
+        introSort(array, 0, array.length, o);
+    }
+
+    /** Sorts [from, to) with {@link #introSort(int[])}. */
+    static void introSort(int[] array, int from, int to, SortObserver o) {
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+        introSort(array, from, to, depthLimit, 0, o);
+    }
+
+    private static void introSort(int[] array, int from, int to, int depthLimit, int depth, SortObserver o) {
+        o.depth(depth);
+        while (to - from > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(array, from, to, o);
+                return;
+            }
+            int p = choosePivot(array, from, to, o);
+            int pivot = array[p];
+
+            // Dutch national flag: [from, lt) < pivot, [lt, i) == pivot, (gt, to) > pivot.
+            // Until a copy of the pivot reaches [lt, i), p tracks where the pivot itself is.
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                o.compare(i, lt < i ? lt : p);
+                if (array[i] < pivot) {
+                    swap(array, lt++, i++, o);
+                } else if (array[i] > pivot) {
+                    if (p == gt) p = i;
+                    swap(array, i, gt--, o);
+                } else {
+                    i++;
+                }
+            }
+
+            if (lt - from < to - gt - 1) {
+                introSort(array, from, lt, depthLimit, depth + 1, o);
+                from = gt + 1;
+            } else {
+                introSort(array, gt + 1, to, depthLimit, depth + 1, o);
+                to = lt;
+            }
+        }
+        insertionSort(array, from, to, o);
+    }
+
+    /** Index of the median of three for small ranges, Tukey's ninther for large ones. */
+    static int choosePivot(int[] array, int from, int to, SortObserver o) {
+        int n = to - from;
+        int mid = from + n / 2;
+        if (n <= 128) {
+            return median3(array, from, mid, to - 1, o);
+        }
+        int step = n / 8;
+        int a = median3(array, from, from + step, from + 2 * step, o);
+        int b = median3(array, mid - step, mid, mid + step, o);
+        int c = median3(array, to - 1 - 2 * step, to - 1 - step, to - 1, o);
+        return median3(array, a, b, c, o);
+    }
+
+    private static int median3(int[] array, int a, int b, int c, SortObserver o) {
+        o.compare(a, b);
+        if (array[a] < array[b]) {
+            o.compare(b, c);
+            if (array[b] < array[c]) return b;
+            o.compare(a, c);
+            return array[a] < array[c] ? c : a;
+        }
+        o.compare(a, c);
+        if (array[a] < array[c]) return a;
+        o.compare(b, c);
+        return array[b] < array[c] ? c : b;
+    }
+
+    public static void heapSort(int[] array) {
+        heapSort(array, SortObserver.NONE);
+    }
+
+    public static void heapSort(int[] array, SortObserver o) {
+        int n = array.length;
+
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            heapify(array, n, i, 0, o);
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            swap(array, 0, i, o);
+            heapify(array, i, 0, 0, o);
+            o.sorted(i);
+        }
+        o.sorted(0);
+    }
+
+    private static void heapify(int[] array, int n, int i, int depth, SortObserver o) {
+        o.depth(depth);
+        int largest = i;
+        int left = 2 * i + 1;
+        int right = 2 * i + 2;
+
+        if (left < n) {
+            o.compare(left, largest);
+            if (array[left] > array[largest]) {
+                largest = left;
+            }
+        }
+        if (right < n) {
+            o.compare(right, largest);
+            if (array[right] > array[largest]) {
+                largest = right;
+            }
+        }
+        if (largest != i) {
+            swap(array, i, largest, o);
+            heapify(array, n, largest, depth + 1, o);
+        }
+    }
+
+    /** Iterative heap sort of [from, to), the fallback for {@link #introSort(int[])}. */
+    static void heapSort(int[] array, int from, int to, SortObserver o) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(array, from, n, i, o);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(array, from, from + i, o);
+            siftDown(array, from, i, 0, o);
+        }
+    }
+
+    private static void siftDown(int[] array, int from, int n, int i, SortObserver o) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < n) {
+                o.compare(from + left, from + largest);
+                if (array[from + left] > array[from + largest]) largest = left;
+            }
+            if (right < n) {
+                o.compare(from + right, from + largest);
+                if (array[from + right] > array[from + largest]) largest = right;
+            }
+            if (largest == i) return;
+            swap(array, from + i, from + largest, o);
+            i = largest;
+        }
+    }
+
+    /** Insertion sort of [from, to), used for the leaves of the divide-and-conquer sorts. */
+    static void insertionSort(int[] array, int from, int to, SortObserver o) {
+        for (int i = from + 1; i < to; i++) {
+            int key = array[i];
+            int j = i - 1;
+            while (j >= from) {
+                o.compare(j, j + 1);
+                if (array[j] <= key) break;
+                set(array, j + 1, array[j], o);
+                j--;
+            }
+            set(array, j + 1, key, o);
+        }
+    }
+
+    static void swap(int[] array, int i, int j, SortObserver o) {
+        o.swap(i, j);
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    static void set(int[] array, int index, int value, SortObserver o) {
+        o.write(index, array[index], value);
+        array[index] = value;
+    }
+
+    public static boolean isSorted(int[] array) {
+        for (int i = 1; i < array.length; i++) {
+            if (array[i - 1] > array[i]) return false;
+        }
+        return true;
+    }
+}
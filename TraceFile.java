@@ -0,0 +1,479 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Sort traces saved to disk, so long runs can be replayed and shared without
+ * sorting again or holding the events on the heap.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   int magic, int version, int n, int blockSize, int snapshotInterval,
+ *   long steps, long indexOffset, short nameLength, name (UTF-8),
+ *   n ints: the initial array,
+ *   the events, in blocks of blockSize, with a snapshot before every
+ *   snapshotInterval-th event,
+ *   index: per block its long offset and int sorted boundary,
+ *   then int snapshots and their long offsets.
+ * </pre>
+ * An event is a varint of {@code zigzag(index - previous index) << 2 | op},
+ * followed for a compare or swap by the zigzagged distance to the second
+ * index and for a write by {@code oldValue ^ newValue}. Sorted markers carry
+ * no operand; their previous boundary is implied by the marker before. The
+ * index delta restarts at 0 in every block, so any block decodes on its own.
+ * A snapshot holds the event counts, the sorted boundary and the whole array.
+ *
+ * A {@link Writer} streams events through a direct buffer into a channel. An
+ * opened file is memory-mapped in 1 GB windows; reading an event decodes its
+ * block, and seeking far ahead or back starts from the nearest snapshot.
+ * An opened file caches one decoded block and is not thread-safe.
+ */
+public final class TraceFile implements TraceSource, Closeable {
+    private static final int MAGIC = 0x53545243; // "STRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 38;
+    static final int BLOCK_SIZE = 1 << 12;
+    /** A snapshot is taken every this many events per element, so snapshots stay a small share of the file. */
+    private static final int SNAPSHOT_RATIO = 16;
+    private static final long WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final String algorithm;
+    private final int n;
+    private final int blockSize;
+    private final long snapshotInterval;
+    private final long steps;
+    private final long arrayOffset;
+    private final long[] blockOffsets;
+    private final int[] blockSorted;
+    private final long[] snapshotOffsets;
+
+    private final long[] block;
+    private long cachedBlock = -1;
+    private long cursor;
+
+    private TraceFile(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            windows = new MappedByteBuffer[(int) ((size + WINDOW - 1) / WINDOW)];
+            for (int w = 0; w < windows.length; w++) {
+                long position = w * WINDOW;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+            }
+            if (size < HEADER_BYTES || readInt(0) != MAGIC) {
+                throw new IOException(file + " is not a sort trace");
+            }
+            if (readInt(4) != VERSION) {
+                throw new IOException(file + ": unsupported trace version " + readInt(4));
+            }
+            n = readInt(8);
+            blockSize = readInt(12);
+            snapshotInterval = readInt(16);
+            steps = readLong(20);
+            long indexOffset = readLong(28);
+            if (indexOffset == 0) {
+                throw new IOException(file + " is incomplete; its sort did not finish");
+            }
+            byte[] name = new byte[((readByte(36) & 0xFF) << 8) | (readByte(37) & 0xFF)];
+            for (int i = 0; i < name.length; i++) name[i] = readByte(HEADER_BYTES + i);
+            algorithm = new String(name, StandardCharsets.UTF_8);
+            arrayOffset = HEADER_BYTES + name.length;
+
+            int blocks = (int) ((steps + blockSize - 1) / blockSize);
+            blockOffsets = new long[blocks];
+            blockSorted = new int[blocks];
+            long p = indexOffset;
+            for (int b = 0; b < blocks; b++, p += 12) {
+                blockOffsets[b] = readLong(p);
+                blockSorted[b] = readInt(p + 8);
+            }
+            snapshotOffsets = new long[readInt(p)];
+            p += 4;
+            for (int s = 0; s < snapshotOffsets.length; s++, p += 8) {
+                snapshotOffsets[s] = readLong(p);
+            }
+            block = new long[blockSize];
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static TraceFile open(Path file) throws IOException {
+        return new TraceFile(file);
+    }
+
+    /**
+     * Starts a trace file for a sort of {@code array}, which is copied as the
+     * start state. The file only opens once {@link Writer#finish()} has run.
+     */
+    public static Writer create(Path file, String algorithm, int[] array) throws IOException {
+        return new Writer(file, algorithm, array);
+    }
+
+    /** Sorts {@code array} with {@code algorithm}, streaming every event to {@code file}; returns the step count. */
+    public static long record(Path file, SortAlgorithm algorithm, int[] array) throws IOException {
+        boolean finished = false;
+        try (Writer writer = create(file, algorithm.name(), array)) {
+            algorithm.sort(array, writer);
+            writer.finish();
+            finished = true;
+            return writer.steps();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (!finished) Files.deleteIfExists(file);
+        }
+    }
+
+    /** Copies any trace, for example one recorded in memory, to {@code file}. */
+    public static void write(Path file, String algorithm, TraceSource trace) throws IOException {
+        boolean finished = false;
+        try (Writer writer = create(file, algorithm, trace.initialArray())) {
+            for (long s = 0, total = trace.steps(); s < total; s++) {
+                long event = trace.eventAt(s);
+                int a = SortTrace.a(event), b = SortTrace.b(event);
+                switch (SortTrace.op(event)) {
+                    case SortTrace.COMPARE: writer.compare(a, b); break;
+                    case SortTrace.SWAP: writer.swap(a, b); break;
+                    case SortTrace.WRITE: writer.write(a, 0, b); break;
+                    default: writer.sorted(a); break;
+                }
+            }
+            writer.finish();
+            finished = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (!finished) Files.deleteIfExists(file);
+        }
+    }
+
+    public String algorithm() {
+        return algorithm;
+    }
+
+    public int length() {
+        return n;
+    }
+
+    @Override
+    public long steps() {
+        return steps;
+    }
+
+    @Override
+    public int[] initialArray() {
+        int[] array = new int[n];
+        readInts(arrayOffset, array);
+        return array;
+    }
+
+    @Override
+    public long eventAt(long step) {
+        if (step < 0 || step >= steps) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + steps);
+        }
+        long b = step / blockSize;
+        if (b != cachedBlock) decodeBlock((int) b);
+        return block[(int) (step - b * blockSize)];
+    }
+
+    @Override
+    public Checkpoint checkpoint(long step) {
+        int s = (int) Math.min(step / snapshotInterval, snapshotOffsets.length);
+        if (s == 0) return TraceSource.super.checkpoint(step);
+        long p = snapshotOffsets[s - 1];
+        long[] counts = new long[4];
+        for (int op = 0; op < 4; op++, p += 8) counts[op] = readLong(p);
+        int sorted = readInt(p);
+        int[] array = new int[n];
+        readInts(p + 4, array);
+        return new Checkpoint(s * snapshotInterval, array, counts, sorted);
+    }
+
+    private void decodeBlock(int b) {
+        cursor = blockOffsets[b];
+        int count = (int) Math.min(blockSize, steps - (long) b * blockSize);
+        int previous = 0, sorted = blockSorted[b];
+        for (int e = 0; e < count; e++) {
+            long header = readVarLong();
+            int op = (int) (header & 3);
+            int a = previous + unzigzag(header >>> 2);
+            int operand;
+            switch (op) {
+                case SortTrace.COMPARE:
+                case SortTrace.SWAP:
+                    operand = a + unzigzag(readVarLong());
+                    break;
+                case SortTrace.WRITE:
+                    operand = (int) readVarLong();
+                    break;
+                default:
+                    operand = sorted;
+                    sorted = a == SortTrace.MAX_INDEX ? -1 : a;
+                    break;
+            }
+            block[e] = ((long) op << 62) | ((long) a << 32) | (operand & 0xFFFFFFFFL);
+            previous = a;
+        }
+        cachedBlock = b;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = readByte(cursor++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static int unzigzag(long v) {
+        return (int) ((v >>> 1) ^ -(v & 1));
+    }
+
+    private byte readByte(long position) {
+        return windows[(int) (position / WINDOW)].get((int) (position % WINDOW));
+    }
+
+    private int readInt(long position) {
+        int offset = (int) (position % WINDOW);
+        MappedByteBuffer window = windows[(int) (position / WINDOW)];
+        if (offset + 4 <= window.limit()) return window.getInt(offset);
+        int v = 0;
+        for (int i = 0; i < 4; i++) v = (v << 8) | (readByte(position + i) & 0xFF);
+        return v;
+    }
+
+    private long readLong(long position) {
+        return ((long) readInt(position) << 32) | (readInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    private void readInts(long position, int[] array) {
+        for (int i = 0; i < array.length; i++, position += 4) {
+            array[i] = readInt(position);
+        }
+    }
+
+    /**
+     * Closes the file. The mapped windows are released by the garbage
+     * collector, as Java 8 has no way to unmap them explicitly.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Records the events of a sort straight to a file. Events go into a
+     * direct buffer that is written out whenever it fills, so memory use does
+     * not grow with the number of steps. {@link #finish()} writes the block
+     * index and the step count once the sort has succeeded; a writer closed
+     * without it leaves the index offset at 0, so the file never opens as a
+     * complete trace. I/O errors are thrown as {@link UncheckedIOException},
+     * as the observer methods cannot throw.
+     */
+    public static final class Writer implements SortObserver, Closeable {
+        private static final int MAX_EVENT_BYTES = 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        private final int[] shadow;
+        private final long snapshotInterval;
+        private final long[] counts = new long[4];
+        private long flushed;
+        private long steps;
+        private int previous;
+        private int sortedBoundary = -1;
+        private long[] blockOffsets = new long[64];
+        private int[] blockSorted = new int[64];
+        private int blocks;
+        private long[] snapshotOffsets = new long[8];
+        private int snapshots;
+        private boolean finished;
+
+        private Writer(Path file, String algorithm, int[] array) throws IOException {
+            if (array.length > SortTrace.MAX_INDEX) {
+                throw new IllegalArgumentException("Array too large to trace: " + array.length);
+            }
+            byte[] name = algorithm.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("Algorithm name too long");
+            }
+            shadow = array.clone();
+            long interval = (long) SNAPSHOT_RATIO * array.length;
+            interval = Math.max(BLOCK_SIZE, (interval + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE);
+            snapshotInterval = Math.min(interval, Integer.MAX_VALUE / BLOCK_SIZE * BLOCK_SIZE);
+
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(array.length).putInt(BLOCK_SIZE)
+                        .putInt((int) snapshotInterval).putLong(0).putLong(0)
+                        .putShort((short) name.length);
+                putBytes(name);
+                putInts(shadow);
+            } catch (UncheckedIOException e) {
+                channel.close();
+                throw e.getCause();
+            }
+        }
+
+        public long steps() {
+            return steps;
+        }
+
+        @Override
+        public void compare(int i, int j) {
+            add(SortTrace.COMPARE, i);
+            putVarLong(zigzag(j - i));
+        }
+
+        @Override
+        public void swap(int i, int j) {
+            add(SortTrace.SWAP, i);
+            putVarLong(zigzag(j - i));
+            int t = shadow[i];
+            shadow[i] = shadow[j];
+            shadow[j] = t;
+        }
+
+        @Override
+        public void write(int index, int oldValue, int newValue) {
+            add(SortTrace.WRITE, index);
+            putVarLong((oldValue ^ newValue) & 0xFFFFFFFFL);
+            shadow[index] ^= oldValue ^ newValue;
+        }
+
+        @Override
+        public void sorted(int boundary) {
+            add(SortTrace.SORTED, boundary & SortTrace.MAX_INDEX);
+            sortedBoundary = boundary;
+        }
+
+        private void add(int op, int index) {
+            if (steps % BLOCK_SIZE == 0) startBlock();
+            if (buffer.remaining() < MAX_EVENT_BYTES) flush();
+            putVarLong(zigzag(index - previous) << 2 | op);
+            previous = index;
+            counts[op]++;
+            steps++;
+        }
+
+        private void startBlock() {
+            if (steps > 0 && steps % snapshotInterval == 0) {
+                if (snapshots == snapshotOffsets.length) {
+                    snapshotOffsets = Arrays.copyOf(snapshotOffsets, snapshots * 2);
+                }
+                snapshotOffsets[snapshots++] = position();
+                for (long c : counts) putLong(c);
+                putInt(sortedBoundary);
+                putInts(shadow);
+            }
+            if (blocks == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                blockSorted = Arrays.copyOf(blockSorted, blocks * 2);
+            }
+            blockOffsets[blocks] = position();
+            blockSorted[blocks++] = sortedBoundary;
+            previous = 0;
+        }
+
+        private long position() {
+            return flushed + buffer.position();
+        }
+
+        private static long zigzag(int v) {
+            return ((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL;
+        }
+
+        private void putVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                buffer.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buffer.put((byte) v);
+        }
+
+        private void putInt(int v) {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(v);
+        }
+
+        private void putLong(long v) {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(v);
+        }
+
+        private void putInts(int[] values) {
+            for (int v : values) putInt(v);
+        }
+
+        private void putBytes(byte[] bytes) {
+            for (byte b : bytes) {
+                if (!buffer.hasRemaining()) flush();
+                buffer.put(b);
+            }
+        }
+
+        private void flush() {
+            // A full buffer is also the cancellation point of a recorded run, as in SortTrace.
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    flushed += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        /** Writes the index and the final header fields; call it once the sort has completed. */
+        public void finish() throws IOException {
+            if (finished) return;
+            finished = true;
+            try {
+                long indexOffset = position();
+                for (int b = 0; b < blocks; b++) {
+                    putLong(blockOffsets[b]);
+                    putInt(blockSorted[b]);
+                }
+                putInt(snapshots);
+                for (int s = 0; s < snapshots; s++) putLong(snapshotOffsets[s]);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    flushed += channel.write(buffer);
+                }
+                ByteBuffer totals = ByteBuffer.allocate(16).putLong(steps).putLong(indexOffset);
+                totals.flip();
+                while (totals.hasRemaining()) {
+                    channel.write(totals, 20 + totals.position());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        /** Closes the file; without {@link #finish()} it stays marked as incomplete. */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
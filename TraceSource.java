@@ -0,0 +1,39 @@
+/**
+ * A recorded sequence of sort events that a panel can replay, held either in
+ * memory ({@link SortTrace}) or in a file ({@link TraceFile}). Events use the
+ * {@link SortTrace} encoding, so {@link SortTrace#apply} steps through them
+ * in both directions.
+ */
+public interface TraceSource {
+
+    /** Returns a copy of the array as it was before the first event. */
+    int[] initialArray();
+
+    long steps();
+
+    long eventAt(long step);
+
+    /**
+     * Returns the latest saved state at or before {@code step}, from which a
+     * replay can continue without applying every earlier event. The default
+     * only knows the initial array.
+     */
+    default Checkpoint checkpoint(long step) {
+        return new Checkpoint(0, initialArray(), new long[4], -1);
+    }
+
+    /** The array, the number of events of each operation and the sorted boundary before event {@code step}. */
+    final class Checkpoint {
+        public final long step;
+        public final int[] array;
+        public final long[] counts;
+        public final int sorted;
+
+        public Checkpoint(long step, int[] array, long[] counts, int sorted) {
+            this.step = step;
+            this.array = array;
+            this.counts = counts;
+            this.sorted = sorted;
+        }
+    }
+}
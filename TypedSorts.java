@@ -0,0 +1,380 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sorts for element types other than int, for library callers that hold
+ * long, double or object data. The panels, benchmarks and CLI all work on
+ * int arrays and do not use this class.
+ *
+ * long[] and double[] are sorted in place with the same intro sort as
+ * {@link Sorts#introSort} (3-way partitioning, ninther pivots, heap sort
+ * fallback, insertion-sorted leaves), so they allocate nothing however large
+ * the array. doubles follow {@link Double#compare}: -0.0 before 0.0 and NaN
+ * last. Objects are sorted by a primitive key without boxing: the keys are
+ * extracted once into a long[] and sorted together with an index
+ * permutation, which is returned. Objects without a primitive key fall back
+ * to a {@link Comparator}.
+ *
+ * The intro sort is written out once per element type (long, double, and
+ * long keys carrying an index), as java.util.DualPivotQuicksort does. Java
+ * generics do not cover primitives, and sharing the code through an
+ * interface or boxed values would add a call or an allocation to every
+ * comparison, which is what these sorts exist to avoid. A fix to the
+ * partition or heap code of one belongs in all three, and in
+ * {@link Sorts#introSort}.
+ */
+public final class TypedSorts {
+    private static final int INSERTION_THRESHOLD = Sorts.INSERTION_THRESHOLD;
+
+    private TypedSorts() {
+    }
+
+    public static void sort(long[] array) {
+        introSort(array, 0, array.length, depthLimit(array.length));
+    }
+
+    /**
+     * NaNs are moved to the end and negative zeros counted and cleared first,
+     * so the main sort can use plain {@code <}; the zeros are restored into
+     * the front of the zero range afterwards.
+     */
+    public static void sort(double[] array) {
+        int end = array.length;
+        for (int i = end - 1; i >= 0; i--) {
+            if (array[i] != array[i]) {
+                double nan = array[i];
+                array[i] = array[--end];
+                array[end] = nan;
+            }
+        }
+        int negativeZeros = 0;
+        for (int i = 0; i < end; i++) {
+            if (array[i] == 0.0 && Double.doubleToRawLongBits(array[i]) < 0) {
+                array[i] = 0.0;
+                negativeZeros++;
+            }
+        }
+        introSort(array, 0, end, depthLimit(end));
+        if (negativeZeros > 0) {
+            int lo = 0, hi = end;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (array[mid] < 0.0) lo = mid + 1;
+                else hi = mid;
+            }
+            for (int i = lo; i < lo + negativeZeros; i++) {
+                array[i] = -0.0;
+            }
+        }
+    }
+
+    /**
+     * Returns the permutation that sorts {@code items} by {@code key}: the
+     * item at {@code items[order[0]]} has the smallest key. Equal keys keep
+     * their input order. {@code items} itself is not modified.
+     */
+    public static <T> int[] argsort(T[] items, ToLongFunction<? super T> key) {
+        long[] keys = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = key.applyAsLong(items[i]);
+        }
+        return argsort(keys);
+    }
+
+    /** Like {@link #argsort(Object[], ToLongFunction)}, ordering keys as {@link Double#compare} does. */
+    public static <T> int[] argsortByDouble(T[] items, ToDoubleFunction<? super T> key) {
+        long[] keys = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = sortableBits(key.applyAsDouble(items[i]));
+        }
+        return argsort(keys);
+    }
+
+    /** Sorts {@code keys} in place and returns where each sorted key came from. */
+    static int[] argsort(long[] keys) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        introSort(keys, order, 0, keys.length, depthLimit(keys.length));
+        return order;
+    }
+
+    /** Sorts {@code items} in place by a primitive key, stably. */
+    public static <T> void sortByKey(T[] items, ToLongFunction<? super T> key) {
+        int[] order = argsort(items, key);
+        T[] source = items.clone();
+        for (int i = 0; i < order.length; i++) {
+            items[i] = source[order[i]];
+        }
+    }
+
+    /** Fallback for objects without a primitive key; stable, like {@link Arrays#sort(Object[], Comparator)}. */
+    public static <T> void sort(T[] items, Comparator<? super T> comparator) {
+        Arrays.sort(items, comparator);
+    }
+
+    /** Maps a double to a long whose signed order matches {@link Double#compare}. */
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(1, n)));
+    }
+
+    // ---- long[] ----
+
+    private static void introSort(long[] a, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, from, to);
+                return;
+            }
+            long pivot = a[choosePivot(a, from, to)];
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                if (a[i] < pivot) swap(a, lt++, i++);
+                else if (a[i] > pivot) swap(a, i, gt--);
+                else i++;
+            }
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            long key = a[i];
+            int j = i - 1;
+            while (j >= from && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    private static int choosePivot(long[] a, int from, int to) {
+        int n = to - from;
+        int mid = from + n / 2;
+        if (n <= 128) return median3(a, from, mid, to - 1);
+        int step = n / 8;
+        return median3(a,
+                median3(a, from, from + step, from + 2 * step),
+                median3(a, mid - step, mid, mid + step),
+                median3(a, to - 1 - 2 * step, to - 1 - step, to - 1));
+    }
+
+    private static int median3(long[] a, int x, int y, int z) {
+        if (a[x] < a[y]) {
+            return a[y] < a[z] ? y : a[x] < a[z] ? z : x;
+        }
+        return a[x] < a[z] ? x : a[y] < a[z] ? z : y;
+    }
+
+    private static void heapSort(long[] a, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, from, n, i);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, from, from + end);
+            siftDown(a, from, end, 0);
+        }
+    }
+
+    private static void siftDown(long[] a, int from, int n, int i) {
+        while (true) {
+            int largest = i, left = 2 * i + 1, right = left + 1;
+            if (left < n && a[from + left] > a[from + largest]) largest = left;
+            if (right < n && a[from + right] > a[from + largest]) largest = right;
+            if (largest == i) return;
+            swap(a, from + i, from + largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(long[] a, int i, int j) {
+        long t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // ---- double[], NaN-free and with no negative zeros ----
+
+    private static void introSort(double[] a, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, from, to);
+                return;
+            }
+            double pivot = a[choosePivot(a, from, to)];
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                if (a[i] < pivot) swap(a, lt++, i++);
+                else if (a[i] > pivot) swap(a, i, gt--);
+                else i++;
+            }
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            double key = a[i];
+            int j = i - 1;
+            while (j >= from && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    private static int choosePivot(double[] a, int from, int to) {
+        int n = to - from;
+        int mid = from + n / 2;
+        if (n <= 128) return median3(a, from, mid, to - 1);
+        int step = n / 8;
+        return median3(a,
+                median3(a, from, from + step, from + 2 * step),
+                median3(a, mid - step, mid, mid + step),
+                median3(a, to - 1 - 2 * step, to - 1 - step, to - 1));
+    }
+
+    private static int median3(double[] a, int x, int y, int z) {
+        if (a[x] < a[y]) {
+            return a[y] < a[z] ? y : a[x] < a[z] ? z : x;
+        }
+        return a[x] < a[z] ? x : a[y] < a[z] ? z : y;
+    }
+
+    private static void heapSort(double[] a, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, from, n, i);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, from, from + end);
+            siftDown(a, from, end, 0);
+        }
+    }
+
+    private static void siftDown(double[] a, int from, int n, int i) {
+        while (true) {
+            int largest = i, left = 2 * i + 1, right = left + 1;
+            if (left < n && a[from + left] > a[from + largest]) largest = left;
+            if (right < n && a[from + right] > a[from + largest]) largest = right;
+            if (largest == i) return;
+            swap(a, from + i, from + largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // ---- long keys carrying an int index; ties are broken by index, which makes the order stable ----
+
+    private static void introSort(long[] k, int[] idx, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(k, idx, from, to);
+                return;
+            }
+            int p = choosePivot(k, idx, from, to);
+            long pk = k[p];
+            int pi = idx[p];
+            // Keys are distinct once the index is included, so a two-way Hoare partition suffices.
+            int i = from - 1, j = to;
+            while (true) {
+                do i++; while (less(k[i], idx[i], pk, pi));
+                do j--; while (less(pk, pi, k[j], idx[j]));
+                if (i >= j) break;
+                swap(k, idx, i, j);
+            }
+            if (j + 1 - from < to - j - 1) {
+                introSort(k, idx, from, j + 1, depthLimit);
+                from = j + 1;
+            } else {
+                introSort(k, idx, j + 1, to, depthLimit);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            long key = k[i];
+            int index = idx[i];
+            int j = i - 1;
+            while (j >= from && less(key, index, k[j], idx[j])) {
+                k[j + 1] = k[j];
+                idx[j + 1] = idx[j];
+                j--;
+            }
+            k[j + 1] = key;
+            idx[j + 1] = index;
+        }
+    }
+
+    private static boolean less(long ka, int ia, long kb, int ib) {
+        return ka < kb || ka == kb && ia < ib;
+    }
+
+    private static boolean less(long[] k, int[] idx, int a, int b) {
+        return less(k[a], idx[a], k[b], idx[b]);
+    }
+
+    private static int choosePivot(long[] k, int[] idx, int from, int to) {
+        int n = to - from;
+        int mid = from + n / 2;
+        if (n <= 128) return median3(k, idx, from, mid, to - 1);
+        int step = n / 8;
+        return median3(k, idx,
+                median3(k, idx, from, from + step, from + 2 * step),
+                median3(k, idx, mid - step, mid, mid + step),
+                median3(k, idx, to - 1 - 2 * step, to - 1 - step, to - 1));
+    }
+
+    private static int median3(long[] k, int[] idx, int x, int y, int z) {
+        if (less(k, idx, x, y)) {
+            return less(k, idx, y, z) ? y : less(k, idx, x, z) ? z : x;
+        }
+        return less(k, idx, x, z) ? x : less(k, idx, y, z) ? z : y;
+    }
+
+    private static void heapSort(long[] k, int[] idx, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(k, idx, from, n, i);
+        for (int end = n - 1; end > 0; end--) {
+            swap(k, idx, from, from + end);
+            siftDown(k, idx, from, end, 0);
+        }
+    }
+
+    private static void siftDown(long[] k, int[] idx, int from, int n, int i) {
+        while (true) {
+            int largest = i, left = 2 * i + 1, right = left + 1;
+            if (left < n && less(k, idx, from + largest, from + left)) largest = left;
+            if (right < n && less(k, idx, from + largest, from + right)) largest = right;
+            if (largest == i) return;
+            swap(k, idx, from + i, from + largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(long[] k, int[] idx, int i, int j) {
+        long tk = k[i];
+        k[i] = k[j];
+        k[j] = tk;
+        int ti = idx[i];
+        idx[i] = idx[j];
+        idx[j] = ti;
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Quick sort built around out-of-place partitioning and sorting-network
+ * leaves, so its inner loops can run on SIMD lanes.
+ *
+ * The loops live behind {@link SortKernels}. When the JVM has the
+ * jdk.incubator.vector module (JDK 16+, started with
+ * {@code --add-modules jdk.incubator.vector}) and incubator/VectorKernels
+ * has been compiled, those kernels are used; otherwise, or with
+ * {@code -Dsort.vector=false}, the branch-free {@link ScalarKernels} are.
+ * Runs with an observer always take a scalar path that reports every
+ * operation, so traces look the same on either backend.
+ *
+ * Partitioning goes through a scratch buffer of about twice the input
+ * length, allocated once per sort. Elements equal to a minimum pivot are
+ * split off in a second pass, and a heap sort fallback bounds the depth.
+ */
+public final class VectorSort {
+    static final int LEAF_SIZE = 16;
+    private static final SortKernels KERNELS = loadKernels();
+
+    private VectorSort() {
+    }
+
+    private static SortKernels loadKernels() {
+        if (!Boolean.parseBoolean(System.getProperty("sort.vector", "true"))) {
+            return new ScalarKernels();
+        }
+        try {
+            return (SortKernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            // Not compiled, older JDK, or the module was not added at startup.
+            return new ScalarKernels();
+        }
+    }
+
+    /** Name of the kernels in use, e.g. "scalar" or "vector (8 x int)". */
+    public static String backend() {
+        return KERNELS.name();
+    }
+
+    public static void vectorQuickSort(int[] array) {
+        vectorQuickSort(array, SortObserver.NONE);
+    }
+
+    public static void vectorQuickSort(int[] array, SortObserver o) {
+        sort(array, o, o.ignoresEvents() ? KERNELS : null);
+    }
+
+    /** Sorts with the given kernels, or with the reporting scalar path when {@code kernels} is null. */
+    static void sort(int[] array, SortObserver o, SortKernels kernels) {
+        int n = array.length;
+        if (n < 2) return;
+        int[] scratch = new int[2 * (n + LEAF_SIZE)];
+        o.allocate(4L * scratch.length);
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(n));
+        sort(array, 0, n, depthLimit, 0, scratch, kernels, o);
+    }
+
+    private static void sort(int[] array, int from, int to, int depthLimit, int depth,
+                             int[] scratch, SortKernels kernels, SortObserver o) {
+        o.depth(depth);
+        while (to - from > LEAF_SIZE) {
+            if (depthLimit-- == 0) {
+                Sorts.heapSort(array, from, to, o);
+                return;
+            }
+            int p = Sorts.choosePivot(array, from, to, o);
+            int pivot = array[p];
+            int mid = from + partition(array, from, to, p, pivot, scratch, kernels, o);
+            if (mid == from) {
+                // Nothing is below the pivot, so it is the minimum: its copies are already in place.
+                if (pivot == Integer.MAX_VALUE) return;
+                from += partition(array, from, to, p, pivot + 1, scratch, kernels, o);
+                continue;
+            }
+            if (mid - from < to - mid) {
+                sort(array, from, mid, depthLimit, depth + 1, scratch, kernels, o);
+                from = mid;
+            } else {
+                sort(array, mid, to, depthLimit, depth + 1, scratch, kernels, o);
+                to = mid;
+            }
+        }
+        if (kernels != null) {
+            kernels.sortLeaf(array, from, to);
+        } else {
+            ScalarKernels.sortNetwork(array, from, to - from, o);
+        }
+    }
+
+    private static int partition(int[] array, int from, int to, int p, int pivot,
+                                 int[] scratch, SortKernels kernels, SortObserver o) {
+        if (kernels != null) {
+            return kernels.partition(array, from, to, pivot, scratch);
+        }
+        int n = to - from;
+        int less = 0, more = n;
+        for (int i = from; i < to; i++) {
+            o.compare(i, p);
+            if (array[i] < pivot) scratch[less++] = array[i];
+            else scratch[more++] = array[i];
+        }
+        for (int i = 0; i < less; i++) Sorts.set(array, from + i, scratch[i], o);
+        for (int i = n; i < more; i++) Sorts.set(array, from + less + i - n, scratch[i], o);
+        return less;
+    }
+}
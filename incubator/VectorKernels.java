@@ -0,0 +1,160 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SortKernels} on jdk.incubator.vector, loaded reflectively by
+ * {@link VectorSort}. It needs JDK 16 or later and is built and run apart
+ * from the rest of the sources, which stay on Java 8:
+ *
+ *   javac *.java
+ *   javac --release 17 --add-modules jdk.incubator.vector -cp . -d . incubator/VectorKernels.java
+ *   java --add-modules jdk.incubator.vector SortBenchmark --algorithms "Vector Quick Sort"
+ *
+ * The incubator API has no compress operation yet, so partitioning packs the
+ * lanes below the pivot with a rearrange taken from a table indexed by the
+ * comparison mask. That table has 2^lanes entries, which is why at most 8
+ * lanes (256-bit vectors) are used. Leaves are sorted in registers by a
+ * bitonic network of rearrange, min, max and blend steps.
+ */
+final class VectorKernels implements SortKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() > 8
+            ? IntVector.SPECIES_256 : IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int ALL = (1 << LANES) - 1;
+
+    /** COMPRESS[mask] moves the lanes set in mask to the front, in order. */
+    private static final VectorShuffle<Integer>[] COMPRESS = compressTable();
+
+    /** Bitonic sort of one vector: stage s pairs each lane with PARTNER[s] and keeps the max where TAKE_MAX[s] is set. */
+    private static final VectorShuffle<Integer>[] PARTNER;
+    private static final VectorMask<Integer>[] TAKE_MAX;
+    private static final VectorShuffle<Integer> REVERSE;
+    private static final int MERGE_STAGES = Integer.numberOfTrailingZeros(LANES);
+
+    static {
+        int stages = MERGE_STAGES * (MERGE_STAGES + 1) / 2;
+        PARTNER = newShuffles(stages);
+        TAKE_MAX = newMasks(stages);
+        int s = 0;
+        for (int k = 2; k <= LANES; k <<= 1) {
+            for (int j = k >> 1; j > 0; j >>= 1, s++) {
+                int[] partner = new int[LANES];
+                boolean[] takeMax = new boolean[LANES];
+                for (int i = 0; i < LANES; i++) {
+                    partner[i] = i ^ j;
+                    takeMax[i] = (i & k) == 0 ? i > partner[i] : i < partner[i];
+                }
+                PARTNER[s] = VectorShuffle.fromArray(SPECIES, partner, 0);
+                TAKE_MAX[s] = VectorMask.fromArray(SPECIES, takeMax, 0);
+            }
+        }
+        int[] reverse = new int[LANES];
+        for (int i = 0; i < LANES; i++) reverse[i] = LANES - 1 - i;
+        REVERSE = VectorShuffle.fromArray(SPECIES, reverse, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static VectorShuffle<Integer>[] newShuffles(int n) {
+        return (VectorShuffle<Integer>[]) new VectorShuffle<?>[n];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static VectorMask<Integer>[] newMasks(int n) {
+        return (VectorMask<Integer>[]) new VectorMask<?>[n];
+    }
+
+    private static VectorShuffle<Integer>[] compressTable() {
+        VectorShuffle<Integer>[] table = newShuffles(1 << LANES);
+        int[] order = new int[LANES];
+        for (int mask = 0; mask <= ALL; mask++) {
+            int k = 0;
+            for (int i = 0; i < LANES; i++) if ((mask & (1 << i)) != 0) order[k++] = i;
+            for (int i = 0; i < LANES; i++) if ((mask & (1 << i)) == 0) order[k++] = i;
+            table[mask] = VectorShuffle.fromArray(SPECIES, order, 0);
+        }
+        return table;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + LANES + " x int)";
+    }
+
+    @Override
+    public int partition(int[] array, int from, int to, int pivot, int[] scratch) {
+        int n = to - from;
+        int moreBase = n + LANES;
+        int less = 0, more = moreBase;
+        IntVector p = IntVector.broadcast(SPECIES, pivot);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(n); i < bound; i += LANES) {
+            IntVector v = IntVector.fromArray(SPECIES, array, i);
+            int bits = (int) v.lt(p).toLong();
+            int count = Integer.bitCount(bits);
+            // Full-width stores; the lanes past the packed ones are overwritten by the next store.
+            v.rearrange(COMPRESS[bits]).intoArray(scratch, less);
+            v.rearrange(COMPRESS[~bits & ALL]).intoArray(scratch, more);
+            less += count;
+            more += LANES - count;
+        }
+        for (; i < to; i++) {
+            int v = array[i];
+            int isLess = v < pivot ? 1 : 0;
+            scratch[less] = v;
+            scratch[more] = v;
+            less += isLess;
+            more += 1 - isLess;
+        }
+        System.arraycopy(scratch, 0, array, from, less);
+        System.arraycopy(scratch, moreBase, array, from + less, more - moreBase);
+        return less;
+    }
+
+    @Override
+    public void sortLeaf(int[] array, int from, int to) {
+        int size = to - from;
+        if (size > 2 * LANES) {
+            ScalarKernels.sortNetwork(array, from, size);
+            return;
+        }
+        VectorMask<Integer> lowMask = SPECIES.indexInRange(0, size);
+        IntVector low = sortVector(load(array, from, lowMask));
+        if (size <= LANES) {
+            low.intoArray(array, from, lowMask);
+            return;
+        }
+        VectorMask<Integer> highMask = SPECIES.indexInRange(LANES, size);
+        IntVector high = sortVector(load(array, from + LANES, highMask)).rearrange(REVERSE);
+        // low followed by reversed high is bitonic: one min/max split, then a merge of each half.
+        IntVector min = low.min(high), max = low.max(high);
+        merge(min).intoArray(array, from);
+        merge(max).intoArray(array, from + LANES, highMask);
+    }
+
+    /** Loads the masked lanes and pads the rest with Integer.MAX_VALUE so they sort last. */
+    private static IntVector load(int[] array, int offset, VectorMask<Integer> mask) {
+        return IntVector.broadcast(SPECIES, Integer.MAX_VALUE).blend(IntVector.fromArray(SPECIES, array, offset, mask), mask);
+    }
+
+    private static IntVector sortVector(IntVector v) {
+        for (int s = 0; s < PARTNER.length; s++) {
+            v = exchange(v, s);
+        }
+        return v;
+    }
+
+    /** The last stages of the bitonic sort, which turn a bitonic vector into a sorted one. */
+    private static IntVector merge(IntVector v) {
+        for (int s = PARTNER.length - MERGE_STAGES; s < PARTNER.length; s++) {
+            v = exchange(v, s);
+        }
+        return v;
+    }
+
+    private static IntVector exchange(IntVector v, int stage) {
+        IntVector w = v.rearrange(PARTNER[stage]);
+        return v.min(w).blend(v.max(w), TAKE_MAX[stage]);
+    }
+}